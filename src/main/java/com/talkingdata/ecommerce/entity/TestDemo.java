@@ -1,9 +1,15 @@
 package com.talkingdata.ecommerce.entity;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import com.talkingdata.ecommerce.support.querydsl.common.PrimaryEntity;
 import com.talkingdata.ecommerce.support.querydsl.common.PrimaryKey;
 
 import javax.annotation.Generated;
+import java.io.IOException;
 
 /**
  * TestDemo is a Querydsl bean type
@@ -42,5 +48,57 @@ public class TestDemo implements PrimaryEntity<Integer> {
         this.id = id;
     }
 
+    /**
+     * TestDemo 的 JSON 读写, 直接访问字段, 不依赖反射
+     */
+    public static final class GsonAdapter extends TypeAdapter<TestDemo> {
+
+        public GsonAdapter(Gson gson) {
+        }
+
+        @Override
+        public void write(JsonWriter out, TestDemo value) throws IOException {
+            out.beginObject();
+            out.name("id");
+            if (value.id == null) {
+                out.nullValue();
+            } else {
+                out.value(value.id);
+            }
+            out.name("name");
+            if (value.name == null) {
+                out.nullValue();
+            } else {
+                out.value(value.name);
+            }
+            out.endObject();
+        }
+
+        @Override
+        public TestDemo read(JsonReader in) throws IOException {
+            TestDemo value = new TestDemo();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "id":
+                        value.id = in.nextInt();
+                        break;
+                    case "name":
+                        value.name = in.nextString();
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return value;
+        }
+    }
+
 }
 
@@ -1,7 +1,6 @@
 package com.talkingdata.ecommerce.repository.impl;
 
 import com.talkingdata.ecommerce.entity.TestDemo;
-import com.talkingdata.ecommerce.entity.query.QTestDemo;
 import com.talkingdata.ecommerce.repository.TestDemoRepository;
 import com.talkingdata.ecommerce.support.querydsl.base.AbstractBaseDao;
 
@@ -18,11 +17,12 @@ public class TestDemoRepositoryImpl extends AbstractBaseDao<TestDemo, Integer> i
     @Inject
     public TestDemoRepositoryImpl(DataSource dataSource) {
     	super(dataSource);
+    	hasCache = true;
     }
 
     @Override
     public TestDemo findById(Integer id) {
-        return queryFactory.selectFrom(QTestDemo.testDemo).where(QTestDemo.testDemo.id.eq(id)).fetchOne();
+        return selectByPrimaryKey(id);
     }
 }
 
@@ -3,6 +3,8 @@ package com.talkingdata.ecommerce.resource;
 import com.google.gson.Gson;
 import com.talkingdata.ecommerce.entity.TestDemo;
 import com.talkingdata.ecommerce.service.TestService;
+import com.talkingdata.ecommerce.support.json.JsonArrayStreamingOutput;
+import com.talkingdata.ecommerce.support.json.JsonEntityTags;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -10,8 +12,13 @@ import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.util.concurrent.CompletionStage;
 
 /**
  * @author wwy
@@ -21,24 +28,59 @@ import javax.ws.rs.core.Response;
 @Path("/")
 public class TestResource {
 
+    @Inject
+    private Gson gson;
+
     @Inject
     private TestService testService;
 
+    @Inject
+    private JsonEntityTags entityTags;
+
+    /**
+     * 带 ETag 返回, 请求的 If-None-Match 与缓存版本匹配时直接返回304, 不查询也不序列化实体
+     */
     @GET
     @Path("/{id}")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getTestDemo(@PathParam("id") Integer id) {
+    public Response getTestDemo(@PathParam("id") Integer id, @Context Request request) {
         try {
-            TestDemo testDemo = testService.findById(id);
-            if (testDemo != null) {
-                return Response.ok(new Gson().toJson(testDemo)).build();
-            }
-            return Response.status(Response.Status.NOT_FOUND).build();
+            return entityTags.ok(request, testService.findVersionById(id), () -> testService.findById(id));
         } catch (Exception e) {
             return null;
         }
     }
 
+    /**
+     * 异步查询, 查询在 dao 线程池中执行, 不占用请求线程, 完成后由 RESTEasy 恢复响应
+     */
+    @GET
+    @Path("/async/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public CompletionStage<Response> getTestDemoAsync(@PathParam("id") Integer id) {
+        return testService.findByIdAsync(id).thenApply(testDemo -> testDemo != null
+                ? Response.ok(testDemo).build()
+                : Response.status(Response.Status.NOT_FOUND).build());
+    }
+
+    /**
+     * 流式返回全部记录, 边读边写, 不在内存中组装整个列表
+     */
+    @GET
+    @Path("/list")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response listTestDemo(@QueryParam("name") String name) {
+        TestDemo condition = null;
+        if (name != null) {
+            condition = new TestDemo();
+            condition.setName(name);
+        }
+        TestDemo finalCondition = condition;
+        StreamingOutput output = new JsonArrayStreamingOutput<TestDemo>(gson, TestDemo.class,
+                consumer -> testService.streamAll(finalCondition, consumer));
+        return Response.ok(output).build();
+    }
+
     @GET
     @Produces(MediaType.APPLICATION_JSON)
     public Response hello() {
@@ -2,6 +2,9 @@ package com.talkingdata.ecommerce.service;
 
 import com.talkingdata.ecommerce.entity.TestDemo;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
 /**
  * @author wwy
  * @date 2019-08-28
@@ -9,4 +12,27 @@ import com.talkingdata.ecommerce.entity.TestDemo;
 public interface TestService {
 
     TestDemo findById(Integer id);
+
+    /**
+     * @param id 主键
+     * @return 实体缓存中的版本, 可作为 ETag, 没有时为null
+     */
+    String findVersionById(Integer id);
+
+    /**
+     * 异步按主键查询, 在 dao 线程池中执行
+     *
+     * @param id 主键
+     * @return 实体, 不存在时为null
+     */
+    CompletableFuture<TestDemo> findByIdAsync(Integer id);
+
+    /**
+     * 流式读取符合条件的记录
+     *
+     * @param condition 条件, 可为null
+     * @param consumer  行处理
+     * @return 记录数
+     */
+    long streamAll(TestDemo condition, Consumer<? super TestDemo> consumer);
 }
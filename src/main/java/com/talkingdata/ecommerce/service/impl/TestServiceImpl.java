@@ -6,6 +6,8 @@ import com.talkingdata.ecommerce.service.TestService;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * @author wwy
@@ -21,4 +23,19 @@ public class TestServiceImpl implements TestService {
     public TestDemo findById(Integer id) {
         return testDemoRepository.findById(id);
     }
+
+    @Override
+    public String findVersionById(Integer id) {
+        return testDemoRepository.selectVersion(id);
+    }
+
+    @Override
+    public CompletableFuture<TestDemo> findByIdAsync(Integer id) {
+        return testDemoRepository.async().selectByPrimaryKey(id);
+    }
+
+    @Override
+    public long streamAll(TestDemo condition, Consumer<? super TestDemo> consumer) {
+        return testDemoRepository.stream(condition, consumer);
+    }
 }
@@ -1,10 +1,14 @@
 package com.talkingdata.ecommerce.support.guice;
 
+import com.google.gson.Gson;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
-import com.google.inject.Scopes;
+import com.google.inject.matcher.AbstractMatcher;
 import com.google.inject.matcher.Matchers;
+import com.talkingdata.ecommerce.support.json.GsonFactory;
 import com.talkingdata.ecommerce.support.querydsl.common.ConnectionContext;
+import com.talkingdata.ecommerce.support.querydsl.common.QueryDslConfig;
+import com.talkingdata.ecommerce.support.querydsl.common.RoutingDataSource;
 import com.talkingdata.ecommerce.support.transaction.TransactionInterceptor;
 import com.talkingdata.ecommerce.support.transaction.Transactional;
 import com.talkingdata.ecommerce.utils.Configs;
@@ -13,6 +17,10 @@ import com.zaxxer.hikari.HikariDataSource;
 
 import javax.inject.Singleton;
 import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * @author wwy
@@ -23,11 +31,21 @@ public abstract class GuiceModule extends AbstractModule {
     @Override
     protected void configure() {
         initialize();
-        bind(ConnectionContext.class).in(Scopes.SINGLETON);
         // 事务拦截器
         TransactionInterceptor interceptor = new TransactionInterceptor();
         requestInjection(interceptor);
+        // 暴露拦截器实例, 便于读取事务属性缓存的命中统计
+        bind(TransactionInterceptor.class).toInstance(interceptor);
         bindInterceptor(Matchers.any(), Matchers.annotatedWith(Transactional.class), interceptor);
+        // 类上声明的事务(如 BaseService), 拦截其除 Object 方法外的所有方法
+        bindInterceptor(Matchers.annotatedWith(Transactional.class),
+                new AbstractMatcher<Method>() {
+                    @Override
+                    public boolean matches(Method method) {
+                        return !method.isAnnotationPresent(Transactional.class) && !method.isSynthetic()
+                                && method.getDeclaringClass() != Object.class;
+                    }
+                }, interceptor);
     }
 
     /**
@@ -35,16 +53,54 @@ public abstract class GuiceModule extends AbstractModule {
      */
     protected abstract void initialize();
 
+    @Provides
+    @Singleton
+    public Gson gson() {
+        return GsonFactory.create();
+    }
+
     @Provides
     @Singleton
     public DataSource dataSource() {
+        HikariDataSource primary = createDataSource("jdbc");
+        Object replicas = Configs.getObject("jdbc.replicas");
+        if (!(replicas instanceof Collection) || ((Collection) replicas).isEmpty()) {
+            return primary;
+        }
+        // 配置了从库时使用读写分离数据源
+        List<DataSource> replicaDataSources = new ArrayList<>();
+        for (int i = 0; i < ((Collection) replicas).size(); i++) {
+            replicaDataSources.add(createDataSource("jdbc.replicas[" + i + "]"));
+        }
+        return new RoutingDataSource(primary, replicaDataSources,
+                RoutingDataSource.Balance.of(Configs.getString("jdbc.replicaBalance")));
+    }
+
+    /**
+     * 按前缀创建连接池, 从库未配置的项沿用主库(jdbc.*)的配置
+     */
+    private HikariDataSource createDataSource(String prefix) {
         HikariConfig hikariConfig = new HikariConfig();
-        hikariConfig.setUsername(Configs.getString("jdbc.username"));
-        hikariConfig.setPassword(Configs.getString("jdbc.password"));
-        hikariConfig.setMaximumPoolSize(Configs.getInt("jdbc.pool.maxActive"));
-        hikariConfig.setMinimumIdle(Configs.getInt("jdbc.pool.minIdle"));
-        hikariConfig.setDriverClassName(Configs.getString("jdbc.driver"));
-        hikariConfig.setJdbcUrl(Configs.getString("jdbc.url"));
+        hikariConfig.setUsername(Configs.getString(prefix + ".username", Configs.getString("jdbc.username")));
+        hikariConfig.setPassword(Configs.getString(prefix + ".password", Configs.getString("jdbc.password")));
+        hikariConfig.setMaximumPoolSize(Configs.getInt(prefix + ".pool.maxActive", Configs.getInt("jdbc.pool.maxActive")));
+        hikariConfig.setMinimumIdle(Configs.getInt(prefix + ".pool.minIdle", Configs.getInt("jdbc.pool.minIdle")));
+        hikariConfig.setDriverClassName(Configs.getString(prefix + ".driver", Configs.getString("jdbc.driver")));
+        hikariConfig.setJdbcUrl(Configs.getString(prefix + ".url"));
+        if (hikariConfig.getJdbcUrl().startsWith("jdbc:mysql:")) {
+            // 让驱动把 JDBC batch 改写成多行 insert 一次发送
+            hikariConfig.addDataSourceProperty("rewriteBatchedStatements",
+                    Configs.getString("jdbc.rewriteBatchedStatements", "true"));
+        }
         return new HikariDataSource(hikariConfig);
     }
+
+    /**
+     * 与 SQLQueryFactory 共用同一个连接上下文, 事务拦截器绑定的连接才能被dao语句使用
+     */
+    @Provides
+    @Singleton
+    public ConnectionContext connectionContext(DataSource dataSource) {
+        return QueryDslConfig.getInstance(dataSource).getConnectionContext();
+    }
 }
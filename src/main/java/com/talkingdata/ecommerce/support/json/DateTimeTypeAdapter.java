@@ -0,0 +1,60 @@
+package com.talkingdata.ecommerce.support.json;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.joda.time.DateTime;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import org.joda.time.format.ISODateTimeFormat;
+
+import java.io.IOException;
+
+/**
+ * Joda {@link DateTime} 的 JSON 读写, 输出 yyyy-MM-dd HH:mm:ss,
+ * 读取时同时接受 yyyy-MM-dd、yyyy-MM-dd HH:mm:ss、ISO-8601 和毫秒数
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+public class DateTimeTypeAdapter extends TypeAdapter<DateTime> {
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormat.forPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final DateTimeFormatter DATE = DateTimeFormat.forPattern("yyyy-MM-dd");
+
+    @Override
+    public void write(JsonWriter out, DateTime value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        out.value(DATE_TIME.print(value));
+    }
+
+    @Override
+    public DateTime read(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.NUMBER) {
+            return new DateTime(in.nextLong());
+        }
+        String text = in.nextString();
+        if (text.isEmpty()) {
+            return null;
+        }
+        try {
+            if (text.indexOf('T') > 0) {
+                return ISODateTimeFormat.dateTimeParser().withOffsetParsed().parseDateTime(text);
+            }
+            return (text.indexOf(':') > 0 ? DATE_TIME : DATE).parseDateTime(text);
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException("invalid date time: " + text, e);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.talkingdata.ecommerce.support.json;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 注册 SimpleBeanSerializer 为实体生成的嵌套类 GsonAdapter.
+ * <p>
+ * 只在启动时查找一次适配器类的构造器, 每个 Gson 实例对每个实体只创建一次适配器,
+ * 之后实体的读写不经过 Gson 的反射适配器.
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+public class GeneratedTypeAdapterFactory implements TypeAdapterFactory {
+
+    /**
+     * 生成的适配器类名(实体的嵌套类)
+     */
+    public static final String ADAPTER_CLASS = "GsonAdapter";
+
+    private final Map<Class<?>, Constructor<? extends TypeAdapter<?>>> constructors;
+
+    public GeneratedTypeAdapterFactory(Collection<Class<?>> entityClasses) {
+        ImmutableMap.Builder<Class<?>, Constructor<? extends TypeAdapter<?>>> constructors = ImmutableMap.builder();
+        for (Class<?> entityClass : entityClasses) {
+            Constructor<? extends TypeAdapter<?>> constructor = findConstructor(entityClass);
+            if (constructor != null) {
+                constructors.put(entityClass, constructor);
+            }
+        }
+        this.constructors = constructors.build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Constructor<? extends TypeAdapter<?>> findConstructor(Class<?> entityClass) {
+        for (Class<?> nested : entityClass.getDeclaredClasses()) {
+            if (ADAPTER_CLASS.equals(nested.getSimpleName()) && TypeAdapter.class.isAssignableFrom(nested)) {
+                try {
+                    return (Constructor<? extends TypeAdapter<?>>) nested.getConstructor(Gson.class);
+                } catch (NoSuchMethodException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return constructors.size();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Constructor<? extends TypeAdapter<?>> constructor = constructors.get(type.getRawType());
+        if (constructor == null) {
+            return null;
+        }
+        try {
+            return ((TypeAdapter<T>) constructor.newInstance(gson)).nullSafe();
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new JsonIOException("can not create " + constructor.getDeclaringClass().getName(), e);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.talkingdata.ecommerce.support.json;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.talkingdata.ecommerce.support.undertow.ApplicationClass.obtainFileDir;
+
+/**
+ * 创建全局共享的 Gson.
+ * <p>
+ * Gson 线程安全, 类型适配器在首次使用某个类型时反射生成并缓存在实例中;
+ * 每次 new Gson() 都要重新生成. 这里只创建一次, 实体优先使用代码生成的 GsonAdapter,
+ * 并在启动时为实体包下的类提前创建适配器.
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+public final class GsonFactory {
+
+    private static final Logger log = LoggerFactory.getLogger(GsonFactory.class);
+
+    public static final String ENTITY_PACKAGE = "com.talkingdata.ecommerce.entity";
+
+    private GsonFactory() {
+    }
+
+    public static Gson create() {
+        List<Class<?>> entityClasses = loadClasses(ENTITY_PACKAGE);
+        GeneratedTypeAdapterFactory generated = new GeneratedTypeAdapterFactory(entityClasses);
+        Gson gson = builder().registerTypeAdapterFactory(generated).create();
+        // 提前生成各实体的适配器, 没有生成适配器的实体在这里完成反射解析
+        for (Class<?> entityClass : entityClasses) {
+            gson.getAdapter(entityClass);
+        }
+        log.info("gson created, {} of {} entity classes use generated adapters", generated.size(), entityClasses.size());
+        return gson;
+    }
+
+    /**
+     * @return 注册了公共类型适配器的 builder
+     */
+    public static GsonBuilder builder() {
+        return new GsonBuilder()
+                .registerTypeAdapter(DateTime.class, new DateTimeTypeAdapter().nullSafe())
+                .disableHtmlEscaping();
+    }
+
+    private static List<Class<?>> loadClasses(String packageName) {
+        List<Class<?>> classes = new ArrayList<>();
+        File dir;
+        try {
+            dir = obtainFileDir(packageName);
+        } catch (IllegalStateException e) {
+            log.warn("skip loading classes: {}", e.getMessage());
+            return classes;
+        }
+        File[] files = dir.listFiles((dir1, name) -> name.endsWith(".class") && !name.contains("$"));
+        if (files == null) {
+            return classes;
+        }
+        for (File f : files) {
+            String className = packageName + "." + f.getName().replace(".class", "");
+            try {
+                classes.add(Class.forName(className));
+            } catch (ClassNotFoundException | LinkageError e) {
+                log.warn("load class fail: {}", className, e);
+            }
+        }
+        return classes;
+    }
+}
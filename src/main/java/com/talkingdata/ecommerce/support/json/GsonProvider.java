@@ -0,0 +1,98 @@
+package com.talkingdata.ecommerce.support.json;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 使用共享 Gson 的 JSON 读写, 资源方法可以直接返回实体或接收实体参数.
+ * <p>
+ * 字符串、字节、流等类型仍交给 RESTEasy 内置的 provider 原样输出.
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+@Provider
+@Singleton
+@Produces({MediaType.APPLICATION_JSON, "application/*+json"})
+@Consumes({MediaType.APPLICATION_JSON, "application/*+json"})
+public class GsonProvider implements MessageBodyWriter<Object>, MessageBodyReader<Object> {
+
+    private final Gson gson;
+
+    @Inject
+    public GsonProvider(Gson gson) {
+        this.gson = gson;
+    }
+
+    private static boolean isJsonType(Class<?> type) {
+        return !(CharSequence.class.isAssignableFrom(type)
+                || byte[].class == type
+                || InputStream.class.isAssignableFrom(type)
+                || Reader.class.isAssignableFrom(type)
+                || File.class.isAssignableFrom(type)
+                || StreamingOutput.class.isAssignableFrom(type));
+    }
+
+    private static Charset charset(MediaType mediaType) {
+        String charset = mediaType == null ? null : mediaType.getParameters().get(MediaType.CHARSET_PARAMETER);
+        return charset == null ? StandardCharsets.UTF_8 : Charset.forName(charset);
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return isJsonType(type);
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                           MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException {
+        try {
+            return gson.fromJson(new InputStreamReader(entityStream, charset(mediaType)), genericType);
+        } catch (JsonParseException e) {
+            throw new BadRequestException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return isJsonType(type);
+    }
+
+    @Override
+    public long getSize(Object o, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(Object o, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(entityStream, charset(mediaType)));
+        gson.toJson(o, genericType, writer);
+        writer.flush();
+    }
+}
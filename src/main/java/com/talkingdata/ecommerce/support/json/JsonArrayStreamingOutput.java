@@ -0,0 +1,80 @@
+package com.talkingdata.ecommerce.support.json;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+import javax.ws.rs.core.StreamingOutput;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * 把逐条产生的实体直接写成 JSON 数组的响应体.
+ * <p>
+ * 不拼接完整字符串, 内存占用与条数无关; 响应没有 Content-Length,
+ * 第一条写出后和之后每 flushRows 条刷新一次, 由 Undertow 以 chunked 编码发送.
+ * 响应头在第一次刷新时已经发出, 之后出错只能中断连接.
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+public class JsonArrayStreamingOutput<T> implements StreamingOutput {
+
+    private static final int DEFAULT_FLUSH_ROWS = 100;
+
+    /**
+     * 数据来源, 如 {@code consumer -> dao.stream(record, consumer)}
+     */
+    @FunctionalInterface
+    public interface Source<T> {
+        void forEach(Consumer<? super T> consumer);
+    }
+
+    private final Gson gson;
+
+    private final Type type;
+
+    private final Source<T> source;
+
+    private final int flushRows;
+
+    public JsonArrayStreamingOutput(Gson gson, Type type, Source<T> source) {
+        this(gson, type, source, DEFAULT_FLUSH_ROWS);
+    }
+
+    public JsonArrayStreamingOutput(Gson gson, Type type, Source<T> source, int flushRows) {
+        this.gson = gson;
+        this.type = type;
+        this.source = source;
+        this.flushRows = Math.max(1, flushRows);
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8)));
+        writer.beginArray();
+        long[] count = new long[1];
+        try {
+            source.forEach(element -> {
+                gson.toJson(element, type, writer);
+                long written = ++count[0];
+                if (written == 1 || written % flushRows == 0) {
+                    try {
+                        writer.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.endArray();
+        writer.flush();
+    }
+}
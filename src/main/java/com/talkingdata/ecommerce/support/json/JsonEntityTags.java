@@ -0,0 +1,80 @@
+package com.talkingdata.ecommerce.support.json;
+
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+/**
+ * 带 ETag 的 JSON 响应, 支持 If-None-Match 条件请求.
+ * <p>
+ * ETag 优先使用实体缓存条目的版本({@link com.talkingdata.ecommerce.support.querydsl.base.BaseDao#selectVersion}),
+ * If-None-Match 匹配时直接返回304, 不取出也不序列化实体; 没有版本(未启用缓存等)时为序列化结果的哈希,
+ * 需要序列化后才能比较, 但匹配时仍不发送响应体.
+ * <p>
+ * 同一内容在不同 Content-Encoding 下字节不同, 因此使用弱 ETag.
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+@Singleton
+public class JsonEntityTags {
+
+    private static final MediaType JSON_UTF8 = MediaType.APPLICATION_JSON_TYPE.withCharset(StandardCharsets.UTF_8.name());
+
+    private final Gson gson;
+
+    @Inject
+    public JsonEntityTags(Gson gson) {
+        this.gson = gson;
+    }
+
+    /**
+     * @param request 当前请求, 用于判断 If-None-Match
+     * @param entity  实体
+     * @return If-None-Match 匹配时返回304, 否则返回200和带 ETag 的 JSON
+     */
+    public Response ok(Request request, Object entity) {
+        return render(request, null, entity);
+    }
+
+    /**
+     * @param request 当前请求, 用于判断 If-None-Match
+     * @param version 实体版本, 为null时按序列化结果计算 ETag
+     * @param entity  取实体, 版本匹配时不调用
+     * @return If-None-Match 匹配时返回304, 实体不存在时返回404, 否则返回200和带 ETag 的 JSON
+     */
+    public Response ok(Request request, String version, Supplier<?> entity) {
+        if (version != null) {
+            Response.ResponseBuilder notModified = request.evaluatePreconditions(new EntityTag(version, true));
+            if (notModified != null) {
+                return notModified.build();
+            }
+        }
+        Object value = entity.get();
+        if (value == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        return render(request, version, value);
+    }
+
+    private Response render(Request request, String version, Object entity) {
+        byte[] body = gson.toJson(entity).getBytes(StandardCharsets.UTF_8);
+        if (version != null) {
+            return Response.ok(body, JSON_UTF8).tag(new EntityTag(version, true)).build();
+        }
+        EntityTag tag = new EntityTag(Hashing.murmur3_128().hashBytes(body).toString(), true);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+        return Response.ok(body, JSON_UTF8).tag(tag).build();
+    }
+}
@@ -0,0 +1,170 @@
+package com.talkingdata.ecommerce.support.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HTTP 请求指标, 按 JAX-RS 路由(请求方法 + 路径模板)统计, 以 Prometheus 文本格式输出:
+ * <ul>
+ * <li>http_server_requests_in_flight 正在处理的请求数(包括排队和未匹配路由的请求)</li>
+ * <li>http_server_route_requests_in_flight 各路由正在处理的请求数</li>
+ * <li>http_server_requests_total 各路由、状态码的请求数</li>
+ * <li>http_server_requests_seconds 各路由延迟直方图(固定上界)</li>
+ * <li>http_server_requests_latency_seconds 各路由延迟分位数, 自启动起累计</li>
+ * </ul>
+ * 记录路径只使用 {@link LongAdder} 和原子数组, 路由首次出现时才写入 map.
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+public final class HttpMetrics {
+
+    /**
+     * 未匹配到资源方法(404、405等)的请求统一计入该路由, 避免标签基数随请求路径增长
+     */
+    public static final String UNMATCHED = "unmatched";
+
+    private static final HttpMetrics INSTANCE = new HttpMetrics();
+
+    /**
+     * 直方图上界, 秒
+     */
+    private static final double[] BUCKETS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final LongAdder inFlight = new LongAdder();
+
+    private final ConcurrentMap<String, Route> routes = new ConcurrentHashMap<>();
+
+    private HttpMetrics() {
+    }
+
+    public static HttpMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    public void requestStarted() {
+        inFlight.increment();
+    }
+
+    public void requestFinished() {
+        inFlight.decrement();
+    }
+
+    /**
+     * @param method 请求方法
+     * @param path   路径模板, 如 /{id}
+     */
+    public Route route(String method, String path) {
+        String key = method + " " + path;
+        Route route = routes.get(key);
+        if (route == null) {
+            route = routes.computeIfAbsent(key, k -> new Route(method, path));
+        }
+        return route;
+    }
+
+    /**
+     * 单个路由的指标
+     */
+    public static final class Route {
+
+        private final String labels;
+
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        private final LongAdder inFlight = new LongAdder();
+
+        private final ConcurrentMap<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        private Route(String method, String path) {
+            this.labels = "method=\"" + escape(method) + "\",route=\"" + escape(path) + "\"";
+        }
+
+        public void started() {
+            inFlight.increment();
+        }
+
+        public void finished() {
+            inFlight.decrement();
+        }
+
+        /**
+         * @param status 响应状态码
+         * @param nanos  耗时纳秒
+         */
+        public void record(int status, long nanos) {
+            histogram.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+            LongAdder counter = statuses.get(status);
+            if (counter == null) {
+                counter = statuses.computeIfAbsent(status, s -> new LongAdder());
+            }
+            counter.increment();
+        }
+    }
+
+    /**
+     * @return Prometheus 文本格式(0.0.4)
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(1024 + routes.size() * 1024);
+        out.append("# HELP http_server_requests_in_flight Requests currently being processed.\n")
+                .append("# TYPE http_server_requests_in_flight gauge\n")
+                .append("http_server_requests_in_flight ").append(inFlight.sum()).append('\n');
+
+        out.append("# HELP http_server_route_requests_in_flight Requests currently being processed per route.\n")
+                .append("# TYPE http_server_route_requests_in_flight gauge\n");
+        for (Route route : routes.values()) {
+            out.append("http_server_route_requests_in_flight{").append(route.labels).append("} ")
+                    .append(route.inFlight.sum()).append('\n');
+        }
+
+        out.append("# HELP http_server_requests_total Completed requests per route and status.\n")
+                .append("# TYPE http_server_requests_total counter\n");
+        for (Route route : routes.values()) {
+            for (Map.Entry<Integer, LongAdder> entry : route.statuses.entrySet()) {
+                out.append("http_server_requests_total{").append(route.labels).append(",status=\"")
+                        .append(entry.getKey()).append("\"} ").append(entry.getValue().sum()).append('\n');
+            }
+        }
+
+        out.append("# HELP http_server_requests_seconds Request latency per route.\n")
+                .append("# TYPE http_server_requests_seconds histogram\n");
+        StringBuilder summary = new StringBuilder();
+        summary.append("# HELP http_server_requests_latency_seconds Request latency quantiles per route since start.\n")
+                .append("# TYPE http_server_requests_latency_seconds summary\n");
+        for (Route route : routes.values()) {
+            LatencyHistogram.Snapshot snapshot = route.histogram.snapshot();
+            double sumSeconds = snapshot.getSum() / 1e6;
+            for (double bucket : BUCKETS) {
+                out.append("http_server_requests_seconds_bucket{").append(route.labels).append(",le=\"")
+                        .append(bucket).append("\"} ").append(snapshot.countAtOrBelow((long) (bucket * 1e6)))
+                        .append('\n');
+            }
+            out.append("http_server_requests_seconds_bucket{").append(route.labels).append(",le=\"+Inf\"} ")
+                    .append(snapshot.getCount()).append('\n');
+            out.append("http_server_requests_seconds_sum{").append(route.labels).append("} ")
+                    .append(sumSeconds).append('\n');
+            out.append("http_server_requests_seconds_count{").append(route.labels).append("} ")
+                    .append(snapshot.getCount()).append('\n');
+
+            for (double quantile : QUANTILES) {
+                summary.append("http_server_requests_latency_seconds{").append(route.labels).append(",quantile=\"")
+                        .append(quantile).append("\"} ").append(snapshot.quantile(quantile) / 1e6).append('\n');
+            }
+            summary.append("http_server_requests_latency_seconds_sum{").append(route.labels).append("} ")
+                    .append(sumSeconds).append('\n');
+            summary.append("http_server_requests_latency_seconds_count{").append(route.labels).append("} ")
+                    .append(snapshot.getCount()).append('\n');
+        }
+        return out.append(summary).toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
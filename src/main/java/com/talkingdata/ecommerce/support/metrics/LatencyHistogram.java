@@ -0,0 +1,134 @@
+package com.talkingdata.ecommerce.support.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的对数-线性延迟直方图(HDR 风格), 单位微秒.
+ * <p>
+ * 小于 32 的值每个值一个桶; 之后每个 2 的幂区间分成 32 个等宽子桶, 相对误差不超过 1/32.
+ * 可记录到 2^36 微秒(约19小时), 更大的值计入最后一个桶. 固定 1024 个桶, 约 8KB.
+ * 记录只是一次 {@link AtomicLongArray#incrementAndGet} 和一次 {@link LongAdder#add}, 不加锁;
+ * 读取时逐桶读取, 与并发记录之间不保证是同一时刻的快照.
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+
+    private static final int MAX_BITS = 36;
+
+    private static final int BUCKETS = (MAX_BITS - SUB_BITS + 1) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * @param micros 延迟微秒数
+     */
+    public void record(long micros) {
+        long value = Math.max(micros, 0);
+        counts.incrementAndGet(index(value));
+        sum.add(value);
+    }
+
+    static int index(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent >= MAX_BITS) {
+            return BUCKETS - 1;
+        }
+        int shift = exponent - SUB_BITS;
+        int sub = (int) ((value >>> shift) & (SUB_COUNT - 1));
+        return (shift + 1) * SUB_COUNT + sub;
+    }
+
+    /**
+     * @return 桶内的最大值
+     */
+    static long highestValue(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_COUNT - 1;
+        int sub = index % SUB_COUNT;
+        return ((long) (SUB_COUNT + sub + 1) << shift) - 1;
+    }
+
+    public Snapshot snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        return new Snapshot(snapshot, total, sum.sum());
+    }
+
+    /**
+     * 某一时刻读取的桶计数
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+
+        private final long count;
+
+        private final long sum;
+
+        private Snapshot(long[] counts, long count, long sum) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return 延迟总和, 微秒
+         */
+        public long getSum() {
+            return sum;
+        }
+
+        /**
+         * @param quantile 0-1
+         * @return 分位值(所在桶的最大值), 微秒, 没有记录时为0
+         */
+        public long quantile(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                if (cumulative >= rank) {
+                    return highestValue(i);
+                }
+            }
+            return highestValue(counts.length - 1);
+        }
+
+        /**
+         * @param micros 上界, 微秒
+         * @return 整个桶都不超过上界的记录数, 跨越上界的桶计入更大的上界
+         */
+        public long countAtOrBelow(long micros) {
+            long cumulative = 0;
+            for (int i = 0; i < counts.length && highestValue(i) <= micros; i++) {
+                cumulative += counts[i];
+            }
+            return cumulative;
+        }
+    }
+}
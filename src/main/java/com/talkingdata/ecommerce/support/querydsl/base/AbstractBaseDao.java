@@ -1,24 +1,40 @@
 package com.talkingdata.ecommerce.support.querydsl.base;
 
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mysema.commons.lang.CloseableIterator;
 import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.ConstantImpl;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Ops;
 import com.querydsl.core.types.Order;
 import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.DateTimePath;
 import com.querydsl.core.types.dsl.Expressions;
 import com.querydsl.core.types.dsl.SimpleExpression;
 import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.MySQLTemplates;
+import com.querydsl.sql.OracleTemplates;
 import com.querydsl.sql.RelationalPath;
+import com.querydsl.sql.SQLBindings;
 import com.querydsl.sql.SQLQuery;
 import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.StatementOptions;
 import com.querydsl.sql.dml.DefaultMapper;
 import com.querydsl.sql.dml.SQLInsertClause;
 import com.querydsl.sql.dml.SQLUpdateClause;
+import com.talkingdata.ecommerce.support.querydsl.common.ConnectionContext;
+import com.talkingdata.ecommerce.support.querydsl.common.PathIndex;
 import com.talkingdata.ecommerce.support.querydsl.common.PrimaryEntity;
 import com.talkingdata.ecommerce.support.querydsl.common.PrimaryKey;
 import com.talkingdata.ecommerce.support.querydsl.common.QueryDslConfig;
+import com.talkingdata.ecommerce.utils.Assert;
 import com.talkingdata.ecommerce.utils.BeanUtils;
 import com.talkingdata.ecommerce.utils.ClassUtils;
+import com.talkingdata.ecommerce.utils.Configs;
 import com.talkingdata.ecommerce.utils.ReflectionUtils;
 import org.joda.time.DateTime;
 import org.joda.time.LocalTime;
@@ -28,13 +44,37 @@ import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 import static java.util.Objects.nonNull;
 import static org.apache.commons.lang3.StringUtils.isBlank;
@@ -48,24 +88,126 @@ public abstract class AbstractBaseDao<T extends PrimaryEntity<ID>, ID extends Se
 
     private static final String NO_CLASS_FOUND_TEMPLATE = "Not find a query class %s for domain class %s!";
     private static final String NO_FIELD_FOUND_TEMPLATE = "Not find a static field of the same type in %s!";
+    private static final String KEYSET_VALUE_TEMPLATE = "Keyset cursor value %s (%s) can not be converted to %s";
     private static final Logger log = LoggerFactory.getLogger(AbstractBaseDao.class);
+    /**
+     * 批量主键查询并行执行各批使用的线程池
+     */
+    private static final ExecutorService BATCH_EXECUTOR = Executors.newFixedThreadPool(
+            Configs.getInt("jdbc.pool.batchThreads", 4),
+            new ThreadFactoryBuilder().setNameFormat("batch-query-%d").setDaemon(true).build());
+    private static final StatementOptions MYSQL_STREAMING = StatementOptions.builder().setFetchSize(Integer.MIN_VALUE).build();
 
     public AbstractBaseDao(DataSource dataSource) {
         this(QueryDslConfig.getInstance(dataSource));
     }
 
     protected final RelationalPath<T> root;
+    protected final PathIndex pathIndex;
     protected final List<Path<?>> builderPaths;
     protected final SQLQueryFactory queryFactory;
+    /**
+     * 查询主库的 SQLQueryFactory, 用于回填实体缓存
+     */
+    private final SQLQueryFactory primaryQueryFactory;
+    protected final DataSource dataSource;
     protected String primaryKeyField;
+    protected final ConnectionContext connectionContext;
+
+    /**
+     * 是否启用按主键的二级缓存, 生成的 Repository 构造器中按 cachedRepositories 配置设置
+     */
+    protected boolean hasCache;
+
+    private volatile EntityCache<ID, T> entityCache;
+
+    private final DmlSupport dml;
+
+    private final AsyncBaseDao<T, ID> async;
+
+    /**
+     * 条件类 -> 预编译访问计划, 实体类的计划在构造时生成, 分页参数类在首次使用时生成
+     */
+    private final ConcurrentMap<Class<?>, QueryPlan> queryPlans = new ConcurrentHashMap<>();
 
 
     public AbstractBaseDao(QueryDslConfig queryDslConfig) {
         this.queryFactory = queryDslConfig.getSqlQueryFactory();
+        this.primaryQueryFactory = queryDslConfig.getPrimaryQueryFactory();
+        this.dataSource = queryDslConfig.getDataSource();
+        this.connectionContext = queryDslConfig.getConnectionContext();
         Class<T> primaryEntity = (Class<T>) ((ParameterizedType) this.getClass().getGenericSuperclass()).getActualTypeArguments()[0];
         this.root = createPath(primaryEntity);
+        this.pathIndex = PathIndex.of(root);
         this.primaryKeyField = getPrimaryKey(primaryEntity);
         this.builderPaths = getBuilderPaths(root);
+        this.queryPlans.put(primaryEntity, buildQueryPlan(primaryEntity));
+        this.dml = new DmlSupport(root, queryFactory.getConfiguration(), connectionContext, dataSource);
+        this.async = new AsyncBaseDao<>(this, connectionContext);
+    }
+
+    @Override
+    public AsyncBaseDao<T, ID> async() {
+        return async;
+    }
+
+    protected QueryPlan getQueryPlan(Class<?> type) {
+        QueryPlan plan = queryPlans.get(type);
+        if (plan == null) {
+            plan = queryPlans.computeIfAbsent(type, this::buildQueryPlan);
+        }
+        return plan;
+    }
+
+    private QueryPlan buildQueryPlan(Class<?> type) {
+        return QueryPlan.build(type, builderPaths, name -> getProperty(root, name));
+    }
+
+    /**
+     * @return 实体缓存, 未启用缓存时返回null
+     */
+    protected EntityCache<ID, T> getEntityCache() {
+        if (!hasCache) {
+            return null;
+        }
+        EntityCache<ID, T> cache = entityCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = entityCache;
+                if (cache == null) {
+                    cache = new EntityCache<>((Class<T>) root.getType());
+                    entityCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * 写操作后失效缓存, 在事务中时提交或回滚后再失效一次, 防止事务期间其他线程读到旧值重新填充
+     */
+    protected void evictCache(ID id) {
+        RequestLoader loader = RequestLoader.current();
+        if (loader != null) {
+            loader.evict(this, id);
+        }
+        EntityCache<ID, T> cache = getEntityCache();
+        if (cache != null && id != null) {
+            cache.invalidate(id);
+            connectionContext.registerAfterCompletion(() -> cache.invalidate(id));
+        }
+    }
+
+    protected void evictAllCache() {
+        RequestLoader loader = RequestLoader.current();
+        if (loader != null) {
+            loader.evictAll(this);
+        }
+        EntityCache<ID, T> cache = getEntityCache();
+        if (cache != null) {
+            cache.invalidateAll();
+            connectionContext.registerAfterCompletion(cache::invalidateAll);
+        }
     }
 
     private String getPrimaryKey(Class<T> primaryEntity) {
@@ -83,6 +225,7 @@ public abstract class AbstractBaseDao<T extends PrimaryEntity<ID>, ID extends Se
         if (nonNull(record)) {
             ID id = (ID) queryFactory.insert(root).populate(record).executeWithKey(getProperty(root, primaryKeyField));
             record.setPrimaryKey(id);
+            evictCache(id);
             return id;
         }
         return null;
@@ -91,18 +234,251 @@ public abstract class AbstractBaseDao<T extends PrimaryEntity<ID>, ID extends Se
     @Override
     public Integer insert(List<T> records) {
         if (nonNull(records) && !records.isEmpty()) {
-            SQLInsertClause insert = queryFactory.insert(root);
-            records.forEach(r -> insert.populate(r).addBatch());
-            Long execute = insert.execute();
-            return execute.intValue();
+            return insertBatch(records).size();
         }
         return null;
     }
 
+    @Override
+    public List<ID> insertBatch(List<T> records) {
+        return insertBatch(records, Configs.getInt("jdbc.batch.insertChunkSize", 1000),
+                Configs.getBoolean("jdbc.batch.multiRowInsert", false));
+    }
+
+    @Override
+    public List<ID> insertBatch(List<T> records, int chunkSize, boolean multiRowValues) {
+        if (records == null || records.isEmpty()) {
+            return Collections.emptyList();
+        }
+        // Oracle 不支持多行 VALUES
+        boolean multiRow = multiRowValues && !(dml.getTemplates() instanceof OracleTemplates);
+        for (List<T> chunk : Lists.partition(records, Math.max(1, chunkSize))) {
+            if (multiRow) {
+                insertMultiRow(chunk);
+            } else {
+                insertJdbcBatch(chunk);
+            }
+        }
+        List<ID> keys = new ArrayList<>(records.size());
+        for (T record : records) {
+            keys.add(record.getPrimaryKey());
+            evictCache(record.getPrimaryKey());
+        }
+        return keys;
+    }
+
+    /**
+     * 每条记录只插入非空字段, 非空字段相同的记录放进同一个 JDBC batch,
+     * MySQL 在 rewriteBatchedStatements=true 时会把 batch 改写为多行 VALUES 一次发送
+     */
+    private void insertJdbcBatch(List<T> chunk) {
+        Map<List<Path<?>>, List<Map<Path<?>, Object>>> groups = new LinkedHashMap<>();
+        Map<List<Path<?>>, List<T>> groupRecords = new LinkedHashMap<>();
+        for (T record : chunk) {
+            Map<Path<?>, Object> values = DefaultMapper.DEFAULT.createMap(root, record);
+            List<Path<?>> columns = new ArrayList<>(values.keySet());
+            groups.computeIfAbsent(columns, c -> new ArrayList<>()).add(values);
+            groupRecords.computeIfAbsent(columns, c -> new ArrayList<>()).add(record);
+        }
+        for (Map.Entry<List<Path<?>>, List<Map<Path<?>, Object>>> group : groups.entrySet()) {
+            List<Path<?>> columns = group.getKey();
+            StringBuilder sql = new StringBuilder("insert into ").append(dml.table());
+            if (columns.isEmpty() && !(dml.getTemplates() instanceof MySQLTemplates)) {
+                sql.append(" default values");
+            } else {
+                sql.append(" (").append(dml.columns(columns)).append(")\nvalues ");
+                appendPlaceholders(sql, columns.size());
+            }
+            List<T> records = groupRecords.get(columns);
+            dml.execute(sql.toString(), connection -> {
+                try (PreparedStatement stmt = dml.prepareInsert(connection, sql.toString(), getProperty(root, primaryKeyField))) {
+                    dml.applyTimeout(connection, stmt);
+                    for (Map<Path<?>, Object> values : group.getValue()) {
+                        int index = 1;
+                        for (Path<?> column : columns) {
+                            dml.set(stmt, column, index++, values.get(column));
+                        }
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                    readGeneratedKeys(stmt, columns, records);
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * 整批拼成一条多行 VALUES 语句, 列取各记录非空字段的并集, 某条记录缺少的列写 DEFAULT
+     */
+    private void insertMultiRow(List<T> chunk) {
+        List<Map<Path<?>, Object>> rows = new ArrayList<>(chunk.size());
+        Set<Path<?>> columnSet = new LinkedHashSet<>();
+        for (T record : chunk) {
+            Map<Path<?>, Object> values = DefaultMapper.DEFAULT.createMap(root, record);
+            rows.add(values);
+            columnSet.addAll(values.keySet());
+        }
+        Path<?> primaryKey = getProperty(root, primaryKeyField);
+        if (columnSet.isEmpty() || columnSet.contains(primaryKey) && rows.stream().anyMatch(r -> !r.containsKey(primaryKey))) {
+            // 全部字段为空, 或部分记录自带主键(无法对应返回的自增主键)时, 改用 JDBC batch
+            insertJdbcBatch(chunk);
+            return;
+        }
+        List<Path<?>> columns = new ArrayList<>();
+        builderPaths.stream().filter(columnSet::contains).forEach(columns::add);
+        StringBuilder sql = new StringBuilder("insert into ").append(dml.table())
+                .append(" (").append(dml.columns(columns)).append(")\nvalues ");
+        for (int i = 0; i < rows.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append('(');
+            for (int j = 0; j < columns.size(); j++) {
+                if (j > 0) {
+                    sql.append(", ");
+                }
+                sql.append(rows.get(i).containsKey(columns.get(j)) ? "?" : "default");
+            }
+            sql.append(')');
+        }
+        dml.execute(sql.toString(), connection -> {
+            try (PreparedStatement stmt = dml.prepareInsert(connection, sql.toString(), getProperty(root, primaryKeyField))) {
+                dml.applyTimeout(connection, stmt);
+                int index = 1;
+                for (Map<Path<?>, Object> values : rows) {
+                    for (Path<?> column : columns) {
+                        if (values.containsKey(column)) {
+                            dml.set(stmt, column, index++, values.get(column));
+                        }
+                    }
+                }
+                stmt.executeUpdate();
+                readGeneratedKeys(stmt, columns, chunk);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public int upsert(T record) {
+        if (record == null) {
+            return 0;
+        }
+        Map<Path<?>, Object> values = DefaultMapper.DEFAULT.createMap(root, record);
+        List<Path<?>> columns = new ArrayList<>(values.keySet());
+        if (columns.isEmpty()) {
+            insert(record);
+            return 1;
+        }
+        Path<?> primaryKey = getProperty(root, primaryKeyField);
+        String sql = dml.upsert(columns, primaryKey);
+        boolean readKey = !columns.contains(primaryKey) && !(dml.getTemplates() instanceof OracleTemplates);
+        int count = dml.execute(sql, connection -> {
+            try (PreparedStatement stmt = readKey ? dml.prepareInsert(connection, sql, primaryKey)
+                    : connection.prepareStatement(sql)) {
+                dml.applyTimeout(connection, stmt);
+                int index = 1;
+                for (Path<?> column : columns) {
+                    dml.set(stmt, column, index++, values.get(column));
+                }
+                int updated = stmt.executeUpdate();
+                if (readKey) {
+                    readGeneratedKeys(stmt, columns, Collections.singletonList(record));
+                }
+                return updated;
+            }
+        });
+        evictCache(record.getPrimaryKey());
+        return count;
+    }
+
+    @Override
+    public int[] upsertBatch(List<T> records) {
+        if (records == null || records.isEmpty()) {
+            return new int[0];
+        }
+        Path<?> primaryKey = getProperty(root, primaryKeyField);
+        List<List<T>> chunks = Lists.partition(records, Math.max(1, Configs.getInt("jdbc.batch.insertChunkSize", 1000)));
+        int[] counts = new int[chunks.size()];
+        for (int i = 0; i < chunks.size(); i++) {
+            // 非空字段相同的记录共用一条语句
+            Map<List<Path<?>>, List<Map<Path<?>, Object>>> groups = new LinkedHashMap<>();
+            List<T> empty = new ArrayList<>();
+            for (T record : chunks.get(i)) {
+                Map<Path<?>, Object> values = DefaultMapper.DEFAULT.createMap(root, record);
+                if (values.isEmpty()) {
+                    // 没有任何字段时不会冲突, 直接插入
+                    empty.add(record);
+                } else {
+                    groups.computeIfAbsent(new ArrayList<>(values.keySet()), c -> new ArrayList<>()).add(values);
+                }
+            }
+            if (!empty.isEmpty()) {
+                insertJdbcBatch(empty);
+                counts[i] += empty.size();
+            }
+            for (Map.Entry<List<Path<?>>, List<Map<Path<?>, Object>>> group : groups.entrySet()) {
+                List<Path<?>> columns = group.getKey();
+                String sql = dml.upsert(columns, primaryKey);
+                counts[i] += dml.execute(sql, connection -> {
+                    try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                        dml.applyTimeout(connection, stmt);
+                        for (Map<Path<?>, Object> values : group.getValue()) {
+                            int index = 1;
+                            for (Path<?> column : columns) {
+                                dml.set(stmt, column, index++, values.get(column));
+                            }
+                            stmt.addBatch();
+                        }
+                        int total = 0;
+                        for (int updated : stmt.executeBatch()) {
+                            // 驱动改写 batch 时返回 SUCCESS_NO_INFO
+                            total += updated == Statement.SUCCESS_NO_INFO ? 1 : Math.max(updated, 0);
+                        }
+                        return total;
+                    }
+                });
+            }
+            // batch 不回填主键, 没有主键的记录可能因唯一索引冲突更新了已有记录, 无法确定其主键
+            if (chunks.get(i).stream().anyMatch(r -> r.getPrimaryKey() == null)) {
+                evictAllCache();
+            } else {
+                chunks.get(i).forEach(r -> evictCache(r.getPrimaryKey()));
+            }
+        }
+        return counts;
+    }
+
+    private static void appendPlaceholders(StringBuilder sql, int count) {
+        sql.append('(');
+        for (int i = 0; i < count; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(')');
+    }
+
+    /**
+     * 主键不在插入列中时, 按顺序把生成的主键回填到实体
+     */
+    private void readGeneratedKeys(Statement stmt, List<Path<?>> columns, List<T> records) throws SQLException {
+        Path<ID> primaryKey = (Path<ID>) getProperty(root, primaryKeyField);
+        if (columns.contains(primaryKey)) {
+            return;
+        }
+        try (ResultSet keys = stmt.getGeneratedKeys()) {
+            Iterator<T> iterator = records.iterator();
+            while (keys.next() && iterator.hasNext()) {
+                iterator.next().setPrimaryKey(dml.getConfiguration().get(keys, primaryKey, 1, primaryKey.getType()));
+            }
+        }
+    }
+
     @Override
     public int updateByPrimaryKey(T record) {
         if (nonNull(record)) {
             Long execute = queryFactory.update(root).populate(record, DefaultMapper.WITH_NULL_BINDINGS).where(((SimpleExpression) getProperty(root, primaryKeyField)).eq(record.getPrimaryKey())).execute();
+            evictCache(record.getPrimaryKey());
             return execute.intValue();
         }
         return 0;
@@ -112,24 +488,201 @@ public abstract class AbstractBaseDao<T extends PrimaryEntity<ID>, ID extends Se
     public int updateByPrimaryKeySelective(T record) {
         if (nonNull(record)) {
             Long execute = queryFactory.update(root).populate(record).where(((SimpleExpression) getProperty(root, primaryKeyField)).eq(record.getPrimaryKey())).execute();
+            evictCache(record.getPrimaryKey());
             return execute.intValue();
         }
         return 0;
     }
 
+    @Override
+    public int[] updateByPrimaryKeyBatch(List<T> records) {
+        return updateBatch(records, DefaultMapper.WITH_NULL_BINDINGS);
+    }
+
+    @Override
+    public int[] updateSelectiveBatch(List<T> records) {
+        return updateBatch(records, DefaultMapper.DEFAULT);
+    }
+
+    /**
+     * 每批一个 SQLUpdateClause, 每条记录 addBatch; 更新字段不同的记录由 QueryDSL 分成不同语句
+     */
+    private int[] updateBatch(List<T> records, DefaultMapper mapper) {
+        if (records == null || records.isEmpty()) {
+            return new int[0];
+        }
+        SimpleExpression<ID> primaryKey = (SimpleExpression<ID>) getProperty(root, primaryKeyField);
+        List<List<T>> chunks = Lists.partition(records, Math.max(1, Configs.getInt("jdbc.batch.updateChunkSize", 1000)));
+        int[] counts = new int[chunks.size()];
+        for (int i = 0; i < chunks.size(); i++) {
+            SQLUpdateClause update = queryFactory.update(root);
+            for (T record : chunks.get(i)) {
+                update.populate(record, mapper).where(primaryKey.eq(record.getPrimaryKey())).addBatch();
+            }
+            counts[i] = (int) update.execute();
+            chunks.get(i).forEach(r -> evictCache(r.getPrimaryKey()));
+        }
+        return counts;
+    }
+
     protected SQLUpdateClause updateSelectiveByObject(T record) {
+        // 条件由调用方追加, 无法确定影响哪些主键
+        evictAllCache();
         return queryFactory.update(root).populate(record);
     }
 
     @Override
     public T selectByPrimaryKey(ID id) {
-        T t = queryFactory.select(root).from(root).where(((SimpleExpression) getProperty(root, primaryKeyField)).eq(id)).fetchOne();
+        // 请求范围内(事务外)同一主键只查一次, 经 prime 登记的主键合并查询
+        RequestLoader loader = RequestLoader.current();
+        if (loader != null && connectionContext.getConnection() == null) {
+            return loader.load(this, id).get();
+        }
+        // 事务内可能读到未提交的数据, 也可能需要读到本事务的修改, 不读写缓存
+        EntityCache<ID, T> cache = connectionContext.getConnection() == null ? getEntityCache() : null;
+        if (cache != null) {
+            T cached = cache.get(id);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        SimpleExpression<ID> primaryKey = (SimpleExpression<ID>) getProperty(root, primaryKeyField);
+        T t = selectFactory(cache).select(root).from(root).where(primaryKey.eq(id)).fetchOne();
+        if (cache != null) {
+            cache.put(id, t);
+        }
         return t;
     }
 
+    /**
+     * 要回填缓存的查询走主库, 避免从库延迟时把旧数据写回缓存并保留到过期
+     */
+    private SQLQueryFactory selectFactory(EntityCache<ID, T> cache) {
+        return cache != null ? primaryQueryFactory : queryFactory;
+    }
+
+    @Override
+    public String selectVersion(ID id) {
+        EntityCache<ID, T> cache = connectionContext.getConnection() == null ? getEntityCache() : null;
+        if (cache == null || id == null) {
+            return null;
+        }
+        String version = cache.getVersion(id);
+        if (version == null && selectByPrimaryKey(id) != null) {
+            version = cache.getVersion(id);
+        }
+        return version;
+    }
+
+    @Override
+    public void prime(Collection<ID> ids) {
+        RequestLoader loader = RequestLoader.current();
+        if (loader != null && ids != null && connectionContext.getConnection() == null) {
+            loader.prime(this, ids);
+        }
+    }
+
+    @Override
+    public Map<ID, T> selectByPrimaryKeys(Collection<ID> ids) {
+        return selectByPrimaryKeys(ids, false);
+    }
+
+    @Override
+    public Map<ID, T> selectByPrimaryKeys(Collection<ID> ids, boolean parallel) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Set<ID> keys = new LinkedHashSet<>(ids);
+        keys.remove(null);
+        Map<ID, T> found = new HashMap<>(keys.size() * 2);
+        boolean inTransaction = connectionContext.getConnection() != null;
+        EntityCache<ID, T> cache = inTransaction ? null : getEntityCache();
+        List<ID> missing = new ArrayList<>(keys.size());
+        for (ID id : keys) {
+            T cached = cache == null ? null : cache.get(id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            SQLQueryFactory factory = selectFactory(cache);
+            List<List<ID>> chunks = Lists.partition(missing, Math.max(1, Configs.getInt("jdbc.batch.inChunkSize", 500)));
+            List<T> rows;
+            // 事务中只能使用绑定的连接, 不并行
+            if (parallel && !inTransaction && chunks.size() > 1) {
+                rows = selectChunksInParallel(factory, chunks);
+            } else {
+                rows = new ArrayList<>(missing.size());
+                for (List<ID> chunk : chunks) {
+                    rows.addAll(selectChunk(factory, chunk));
+                }
+            }
+            for (T row : rows) {
+                found.put(row.getPrimaryKey(), row);
+                if (cache != null) {
+                    cache.put(row.getPrimaryKey(), row);
+                }
+            }
+        }
+        Map<ID, T> result = new LinkedHashMap<>(found.size() * 2);
+        for (ID id : keys) {
+            T row = found.get(id);
+            if (row != null) {
+                result.put(id, row);
+            }
+        }
+        return result;
+    }
+
+    private List<T> selectChunk(SQLQueryFactory factory, List<ID> chunk) {
+        SimpleExpression<ID> primaryKey = (SimpleExpression<ID>) getProperty(root, primaryKeyField);
+        return factory.select(root).from(root).where(primaryKey.in(chunk)).fetch();
+    }
+
+    private List<T> selectChunksInParallel(SQLQueryFactory factory, List<List<ID>> chunks) {
+        List<CompletableFuture<List<T>>> futures = new ArrayList<>(chunks.size());
+        for (List<ID> chunk : chunks) {
+            futures.add(CompletableFuture.supplyAsync(() -> selectChunk(factory, chunk), BATCH_EXECUTOR));
+        }
+        List<T> rows = new ArrayList<>();
+        try {
+            for (CompletableFuture<List<T>> future : futures) {
+                rows.addAll(future.join());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(f -> f.cancel(false));
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+        return rows;
+    }
+
+    @Override
+    public int[] deleteByPrimaryKeys(Collection<ID> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new int[0];
+        }
+        SimpleExpression<ID> primaryKey = (SimpleExpression<ID>) getProperty(root, primaryKeyField);
+        List<ID> keys = new ArrayList<>(new LinkedHashSet<>(ids));
+        keys.remove(null);
+        List<List<ID>> chunks = Lists.partition(keys, Math.max(1, Configs.getInt("jdbc.batch.inChunkSize", 500)));
+        int[] counts = new int[chunks.size()];
+        for (int i = 0; i < chunks.size(); i++) {
+            counts[i] = (int) queryFactory.delete(root).where(primaryKey.in(chunks.get(i))).execute();
+            chunks.get(i).forEach(this::evictCache);
+        }
+        return counts;
+    }
+
     @Override
     public int deleteByPrimaryKey(ID id) {
         Long execute = queryFactory.delete(root).where(((SimpleExpression) getProperty(root, primaryKeyField)).eq(id)).execute();
+        evictCache(id);
         return execute.intValue();
     }
 
@@ -148,11 +701,74 @@ public abstract class AbstractBaseDao<T extends PrimaryEntity<ID>, ID extends Se
         } else {
             order = toOrder(primaryKeyField, Order.DESC.name());
         }
-        if (page.getPager().isPageEnabled()) {
-            pageNum = page.getPage();
+        Pager pager = page.getPager();
+        // HAS_NEXT 时多取一条, 用于判断是否有下一页
+        int lookahead = page.getCountStrategy() == CountStrategy.HAS_NEXT ? 1 : 0;
+        List<T> list;
+        if (pager.isKeysetEnabled()) {
             pageSize = page.getRows();
+            list = queryByKeyset(page, pageSize + lookahead, order);
+        } else {
+            if (pager.isPageEnabled()) {
+                pageNum = page.getPage();
+                pageSize = page.getRows();
+            }
+            list = queryByList(pageNum, pageSize, lookahead, page, order);
+        }
+        if (lookahead > 0) {
+            boolean hasNext = nonNull(pageSize) && list.size() > pageSize;
+            if (hasNext) {
+                list.remove(list.size() - 1);
+            }
+            pager.setHasNext(hasNext);
         }
-        return queryByList(pageNum, pageSize, page, order);
+        return list;
+    }
+
+    @Override
+    public int queryByEstimatedCount(BasePage page) {
+        if (!(queryFactory.getConfiguration().getTemplates() instanceof MySQLTemplates)) {
+            return queryByCount(page);
+        }
+        SQLQuery<?> sqlQuery = queryFactory.select(getProperty(root, primaryKeyField)).from(root);
+        obtainQueryListWhere(sqlQuery, page);
+        SQLBindings sql = sqlQuery.getSQL();
+        try {
+            // 与其他查询使用相同的连接: 事务中为绑定的连接, 否则为读连接(从库)
+            return dml.read(connection -> {
+                try (PreparedStatement stmt = connection.prepareStatement("EXPLAIN " + sql.getSQL())) {
+                    dml.applyTimeout(connection, stmt);
+                    List<Object> bindings = sql.getNullFriendlyBindings();
+                    for (int i = 0; i < bindings.size(); i++) {
+                        queryFactory.getConfiguration().set(stmt, null, i + 1, bindings.get(i));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (!rs.next()) {
+                            return 0;
+                        }
+                        double rows = rs.getLong("rows");
+                        // MySQL 5.7+ 会给出条件过滤比例
+                        if (hasColumn(rs, "filtered")) {
+                            rows = rows * rs.getDouble("filtered") / 100;
+                        }
+                        return (int) Math.round(rows);
+                    }
+                }
+            });
+        } catch (SQLException e) {
+            log.error("explain count fail, fallback to exact count.", e);
+            return queryByCount(page);
+        }
+    }
+
+    private boolean hasColumn(ResultSet rs, String column) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            if (column.equalsIgnoreCase(metaData.getColumnLabel(i))) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
@@ -175,6 +791,66 @@ public abstract class AbstractBaseDao<T extends PrimaryEntity<ID>, ID extends Se
         return t;
     }
 
+    @Override
+    public CloseableIterator<T> iterate(T record) {
+        return iterate(nonNull(record) ? getPredicate(record) : null);
+    }
+
+    @Override
+    public long stream(T record, Consumer<? super T> consumer) {
+        return stream(iterate(record), consumer);
+    }
+
+    /**
+     * 按条件流式查询, 按主键排序. 迭代器关闭前连接一直被占用;
+     * MySQL 流式读取期间同一连接不能执行其他语句, 事务中使用时 consumer 里不要再访问数据库
+     *
+     * @param predicate 条件, 可为null
+     * @param orders    排序, 为空时按主键升序
+     * @return 可关闭的实体迭代器
+     */
+    protected CloseableIterator<T> iterate(Predicate predicate, OrderSpecifier<?>... orders) {
+        SQLQuery<T> sqlQuery = queryFactory.select(root).from(root);
+        if (nonNull(predicate)) {
+            sqlQuery.where(predicate);
+        }
+        if (orders.length == 0) {
+            sqlQuery.orderBy(new OrderSpecifier(Order.ASC, getProperty(root, primaryKeyField)));
+        } else {
+            sqlQuery.orderBy(orders);
+        }
+        sqlQuery.setStatementOptions(streamingOptions());
+        return sqlQuery.iterate();
+    }
+
+    protected long stream(Predicate predicate, Consumer<? super T> consumer, OrderSpecifier<?>... orders) {
+        return stream(iterate(predicate, orders), consumer);
+    }
+
+    private long stream(CloseableIterator<T> iterator, Consumer<? super T> consumer) {
+        long count = 0;
+        try {
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                count++;
+            }
+        } finally {
+            iterator.close();
+        }
+        return count;
+    }
+
+    /**
+     * MySQL 驱动只有 fetchSize=Integer.MIN_VALUE 时才逐行读取, 否则会把整个结果集读入内存;
+     * 其他数据库按 jdbc.streamFetchSize 分批读取
+     */
+    private StatementOptions streamingOptions() {
+        if (queryFactory.getConfiguration().getTemplates() instanceof MySQLTemplates) {
+            return MYSQL_STREAMING;
+        }
+        return StatementOptions.builder().setFetchSize(Configs.getInt("jdbc.streamFetchSize", 1000)).build();
+    }
+
     protected OrderSpecifier toOrder(String orderField, String direction) {
         if (isBlank(direction)) {
             direction = "asc";
@@ -190,17 +866,150 @@ public abstract class AbstractBaseDao<T extends PrimaryEntity<ID>, ID extends Se
         return new OrderSpecifier(order, property);
     }
 
-    private List<T> queryByList(Integer page, Integer pageSize, Object page1, OrderSpecifier<?>... orders) {
+    private List<T> queryByList(Integer page, Integer pageSize, int lookahead, Object page1, OrderSpecifier<?>... orders) {
         SQLQuery<T> sqlQuery = queryFactory.select(root).from(root);
         obtainQueryListWhere(sqlQuery, page1);
         sqlQuery.orderBy(orders);
         if (nonNull(page)) {
-            sqlQuery.offset(getOffset(page, pageSize)).limit(pageSize);
+            sqlQuery.offset(getOffset(page, pageSize)).limit(pageSize + lookahead);
         }
         List<T> fetch = sqlQuery.fetch();
         return fetch;
     }
 
+    /**
+     * 游标分页: WHERE sort < ? OR (sort = ? AND pk < ?) ORDER BY sort, pk LIMIT n,
+     * 升序时比较符为 >. 与 offset 分页不同, 翻到多深都只扫描 n 行.
+     * <p>
+     * 按非主键字段排序时, 排序字段应为 NOT NULL: 排序值为 NULL 的记录无法用比较定位, 各页(包括第一页)都不返回;
+     * 游标必须同时带上一页最后一条的排序值和主键.
+     */
+    private List<T> queryByKeyset(BasePage page, int limit, OrderSpecifier<?> order) {
+        Path<?> primaryKey = getProperty(root, primaryKeyField);
+        SQLQuery<T> sqlQuery = queryFactory.select(root).from(root);
+        obtainQueryListWhere(sqlQuery, page);
+        Predicate seek = keysetPredicate(primaryKey, order, page.getLastSortValue(), page.getLastPrimaryKey());
+        if (seek != null) {
+            sqlQuery.where(seek);
+        }
+        sqlQuery.orderBy(keysetOrder(primaryKey, order));
+        sqlQuery.limit(limit);
+        return sqlQuery.fetch();
+    }
+
+    /**
+     * 游标分页的定位条件, 第一页(没有 lastPrimaryKey)时按主键排序返回null, 按其他字段排序只返回 NOT NULL 条件
+     *
+     * @param primaryKey     主键
+     * @param order          排序
+     * @param lastSortValue  上一页最后一条的排序值
+     * @param lastPrimaryKey 上一页最后一条的主键
+     */
+    static Predicate keysetPredicate(Path<?> primaryKey, OrderSpecifier<?> order, Object lastSortValue,
+                                     Object lastPrimaryKey) {
+        Expression<?> sort = order.getTarget();
+        boolean sortByPrimaryKey = primaryKey.equals(sort);
+        Predicate predicate = null;
+        if (!sortByPrimaryKey) {
+            // NULL 只会出现在第一页, 统一排除, 使各页结果一致
+            predicate = Expressions.predicate(Ops.IS_NOT_NULL, sort);
+        }
+        if (nonNull(lastPrimaryKey)) {
+            Assert.isTrue(sortByPrimaryKey || nonNull(lastSortValue),
+                    "Keyset cursor sorted by a non-primary-key field requires lastSortValue");
+            Ops ops = order.isAscending() ? Ops.GT : Ops.LT;
+            Expression<?> lastKey = ConstantImpl.create(keysetValue(lastPrimaryKey, primaryKey.getType()));
+            Predicate after = Expressions.predicate(ops, primaryKey, lastKey);
+            if (!sortByPrimaryKey) {
+                Expression<?> lastSort = ConstantImpl.create(keysetValue(lastSortValue, sort.getType()));
+                after = ExpressionUtils.or(Expressions.predicate(ops, sort, lastSort),
+                        ExpressionUtils.and(Expressions.predicate(Ops.EQ, sort, lastSort), after));
+            }
+            predicate = ExpressionUtils.and(predicate, after);
+        }
+        return predicate;
+    }
+
+    /**
+     * 游标分页的排序, 按其他字段排序时追加同方向的主键, 保证顺序唯一
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static OrderSpecifier<?>[] keysetOrder(Path<?> primaryKey, OrderSpecifier<?> order) {
+        if (primaryKey.equals(order.getTarget())) {
+            return new OrderSpecifier<?>[]{order};
+        }
+        return new OrderSpecifier<?>[]{order, new OrderSpecifier(order.getOrder(), primaryKey)};
+    }
+
+    /**
+     * 把游标值转换为字段的 Java 类型. 游标来自请求参数时为字符串, 来自 JSON 时数字为 Double
+     *
+     * @throws IllegalArgumentException 无法转换(类型不支持、格式错误、小数转整数等)时
+     */
+    static Object keysetValue(Object value, Class<?> type) {
+        if (type.isInstance(value)) {
+            return value;
+        }
+        try {
+            if (value instanceof Number) {
+                Number number = (Number) value;
+                if (Integer.class.equals(type)) {
+                    return toBigDecimal(number).intValueExact();
+                } else if (Long.class.equals(type)) {
+                    return toBigDecimal(number).longValueExact();
+                } else if (Short.class.equals(type)) {
+                    return toBigDecimal(number).shortValueExact();
+                } else if (BigDecimal.class.equals(type)) {
+                    return toBigDecimal(number);
+                } else if (BigInteger.class.equals(type)) {
+                    return toBigDecimal(number).toBigIntegerExact();
+                } else if (Double.class.equals(type)) {
+                    return number.doubleValue();
+                } else if (Float.class.equals(type)) {
+                    return number.floatValue();
+                } else if (DateTime.class.equals(type)) {
+                    return new DateTime(toBigDecimal(number).longValueExact());
+                }
+            } else if (value instanceof String) {
+                String text = ((String) value).trim();
+                if (Integer.class.equals(type)) {
+                    return Integer.valueOf(text);
+                } else if (Long.class.equals(type)) {
+                    return Long.valueOf(text);
+                } else if (Short.class.equals(type)) {
+                    return Short.valueOf(text);
+                } else if (BigDecimal.class.equals(type)) {
+                    return new BigDecimal(text);
+                } else if (BigInteger.class.equals(type)) {
+                    return new BigInteger(text);
+                } else if (Double.class.equals(type)) {
+                    return Double.valueOf(text);
+                } else if (Float.class.equals(type)) {
+                    return Float.valueOf(text);
+                } else if (DateTime.class.equals(type)) {
+                    return DateTimeFormat.forPattern("yyyy-MM-dd HH:mm:ss").parseDateTime(text);
+                }
+            }
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            throw new IllegalArgumentException(String.format(KEYSET_VALUE_TEMPLATE, value,
+                    value.getClass().getSimpleName(), type.getName()), e);
+        }
+        throw new IllegalArgumentException(String.format(KEYSET_VALUE_TEMPLATE, value,
+                value.getClass().getSimpleName(), type.getName()));
+    }
+
+    private static BigDecimal toBigDecimal(Number number) {
+        if (number instanceof BigDecimal) {
+            return (BigDecimal) number;
+        } else if (number instanceof BigInteger) {
+            return new BigDecimal((BigInteger) number);
+        } else if (number instanceof Double || number instanceof Float) {
+            // NaN 和无穷大抛出 NumberFormatException
+            return BigDecimal.valueOf(number.doubleValue());
+        }
+        return BigDecimal.valueOf(number.longValue());
+    }
+
     protected Long getOffset(Integer page, Integer pageSize) {
         return new Integer((page - 1) * pageSize).longValue();
     }
@@ -214,83 +1023,72 @@ public abstract class AbstractBaseDao<T extends PrimaryEntity<ID>, ID extends Se
 
     private void obtainQueryListWhere(SQLQuery<?> sqlQuery, Object page) {
         if (nonNull(page)) {
-            if (nonNull(page)) {
-                Field[] fields = page.getClass().getDeclaredFields();
-                Optional<Field> operator = Arrays.stream(fields).filter(f -> f.getName().contains("Operator")).findAny();
-                if (operator.isPresent()) {
-                    sqlQuery.where(getPagePredicate(page));
-                } else {
-                    sqlQuery.where(getPredicate(page));
-                }
+            if (getQueryPlan(page.getClass()).hasOperator()) {
+                sqlQuery.where(getPagePredicate(page));
+            } else {
+                sqlQuery.where(getPredicate(page));
             }
         }
     }
 
     public BooleanBuilder getPagePredicate(final Object entity) {
         BooleanBuilder booleanBuilder = new BooleanBuilder();
-        Class entityClass1 = entity.getClass();
-        Field[] fields = entityClass1.getDeclaredFields();
-        for (Path<?> builderPath : builderPaths) {
-            Optional<Field> any = Arrays.stream(fields).filter(f -> f.getName().equals(builderPath.getMetadata().getName())).findAny();
-            if (any.isPresent()) {
-                Object value = null;
-                Field field = any.get();
-                try {
-                    field.setAccessible(true);
-                    value = field.get(entity);
-                } catch (IllegalArgumentException
-                        | IllegalAccessException e) {
-                    log.error("get field fail.", e);
+        QueryPlan plan = getQueryPlan(entity.getClass());
+        for (QueryPlan.Accessor accessor : plan.getColumnAccessors()) {
+            Object value = getValue(accessor, entity);
+            if (null != value && !"".equals(String.valueOf(value))) {
+                if (accessor.needsConvert(value)) {
+                    value = convert(value, accessor.getFieldType());
                 }
-                if (null != value && !"".equals(String.valueOf(value))) {
-                    value = convert(value, field.getType());
-                    Path<?> property = getProperty(root, field.getName());
-                    if (null != property
-                            && property instanceof SimpleExpression) {
-                        SimpleExpression simpleExpression = (SimpleExpression) property;
-                        Optional<Field> operatorFieldOptional = Arrays.stream(fields).filter(f -> f.getName().equals(field.getName() + "Operator")).findAny();
-                        if (value instanceof Collection || value.getClass().isArray()) {
-                            booleanBuilder.and(simpleExpression.in(value));
-                        } else {
-                            if (operatorFieldOptional.isPresent()) {
-                                Field operatorField = operatorFieldOptional.get();
-                                operatorField.setAccessible(true);
-                                Object operatorValue = null;
-                                try {
-                                    operatorValue = operatorField.get(entity);
-                                } catch (IllegalArgumentException
-                                        | IllegalAccessException e) {
-                                    log.error("get field fail.", e);
-                                }
-                                if (null != operatorValue) {
-                                    switch (String.valueOf(operatorValue)) {
-                                        case "like":
-                                            StringPath path = getStringProperty(root, field.getName());
-                                            if (null != path) {
-                                                booleanBuilder.and(path.like(String.format("%%%s%%", String.valueOf(value))));
-                                            }
-                                            break;
-                                        case "<>":
-                                        case "!=":
-                                            obtainSimpleNEWhere(booleanBuilder, simpleExpression, value);
-                                            break;
-                                        default:
-                                            obtainSimpleEQWhere(booleanBuilder, simpleExpression, value);
-                                            break;
-                                    }
+                SimpleExpression simpleExpression = accessor.getExpression();
+                if (null != simpleExpression) {
+                    if (value instanceof Collection || value.getClass().isArray()) {
+                        booleanBuilder.and(simpleExpression.in(value));
+                    } else {
+                        if (accessor.hasOperator()) {
+                            Object operatorValue = null;
+                            try {
+                                operatorValue = accessor.getOperator(entity);
+                            } catch (Throwable e) {
+                                log.error("get field fail.", e);
+                            }
+                            if (null != operatorValue) {
+                                switch (String.valueOf(operatorValue)) {
+                                    case "like":
+                                        StringPath path = getStringProperty(root, accessor.getName());
+                                        if (null != path) {
+                                            booleanBuilder.and(path.like(String.format("%%%s%%", String.valueOf(value))));
+                                        }
+                                        break;
+                                    case "<>":
+                                    case "!=":
+                                        obtainSimpleNEWhere(booleanBuilder, simpleExpression, value);
+                                        break;
+                                    default:
+                                        obtainSimpleEQWhere(booleanBuilder, simpleExpression, value);
+                                        break;
                                 }
-                            } else {
-                                obtainSimpleEQWhere(booleanBuilder, simpleExpression, value);
                             }
+                        } else {
+                            obtainSimpleEQWhere(booleanBuilder, simpleExpression, value);
                         }
                     }
                 }
             }
         }
-        obtainTimeWhere(booleanBuilder, entity);
+        obtainTimeWhere(booleanBuilder, entity, plan);
         return booleanBuilder;
     }
 
+    private Object getValue(QueryPlan.Accessor accessor, Object entity) {
+        try {
+            return accessor.get(entity);
+        } catch (Throwable e) {
+            log.error("get field fail.", e);
+            return null;
+        }
+    }
+
     private void obtainSimpleEQWhere(BooleanBuilder booleanBuilder, SimpleExpression simpleExpression, Object value) {
         if ("null".equalsIgnoreCase(String.valueOf(value))) {
             booleanBuilder.and(simpleExpression.isNull());
@@ -321,37 +1119,34 @@ public abstract class AbstractBaseDao<T extends PrimaryEntity<ID>, ID extends Se
         }
     }
 
-    private void obtainTimeWhere(BooleanBuilder booleanBuilder, final Object entity) {
-        Field[] fields = entity.getClass().getDeclaredFields();
-        Optional<Field> createTime1 = Arrays.stream(fields).filter(f -> f.getName().equals("createTime1")).findAny();
-        Optional<Field> createTime2 = Arrays.stream(fields).filter(f -> f.getName().equals("createTime2")).findAny();
-        Optional<Field> updateTime1 = Arrays.stream(fields).filter(f -> f.getName().equals("updateTime1")).findAny();
-        Optional<Field> updateTime2 = Arrays.stream(fields).filter(f -> f.getName().equals("updateTime2")).findAny();
-        if (createTime1.isPresent()) {
-            obtainAfterTimeWhere(booleanBuilder, "createTime", transferStringField(createTime1.get(), entity));
+    private void obtainTimeWhere(BooleanBuilder booleanBuilder, final Object entity, QueryPlan plan) {
+        MethodHandle createTime1 = plan.getTimeGetter("createTime1");
+        MethodHandle createTime2 = plan.getTimeGetter("createTime2");
+        MethodHandle updateTime1 = plan.getTimeGetter("updateTime1");
+        MethodHandle updateTime2 = plan.getTimeGetter("updateTime2");
+        if (nonNull(createTime1)) {
+            obtainAfterTimeWhere(booleanBuilder, "createTime", transferStringField(createTime1, entity));
         }
-        if (createTime2.isPresent()) {
-            obtainBeforeTimeWhere(booleanBuilder, "createTime", transferStringField(createTime2.get(), entity));
+        if (nonNull(createTime2)) {
+            obtainBeforeTimeWhere(booleanBuilder, "createTime", transferStringField(createTime2, entity));
         }
-        if (updateTime1.isPresent()) {
-            obtainAfterTimeWhere(booleanBuilder, "updateTime", transferStringField(updateTime1.get(), entity));
+        if (nonNull(updateTime1)) {
+            obtainAfterTimeWhere(booleanBuilder, "updateTime", transferStringField(updateTime1, entity));
         }
-        if (updateTime2.isPresent()) {
-            obtainBeforeTimeWhere(booleanBuilder, "updateTime", transferStringField(updateTime2.get(), entity));
+        if (nonNull(updateTime2)) {
+            obtainBeforeTimeWhere(booleanBuilder, "updateTime", transferStringField(updateTime2, entity));
         }
     }
 
-    private DateTime transferStringField(Field field, final Object entity) {
+    private DateTime transferStringField(MethodHandle getter, final Object entity) {
         try {
-            field.setAccessible(true);
-            String value = (String) field.get(entity);
+            String value = (String) (Object) getter.invokeExact(entity);
             DateTime dateTime = null;
             if (null != value) {
                 dateTime = DateTimeFormat.forPattern("yyyy-MM-dd HH:mm:ss").parseDateTime(value);
             }
             return dateTime;
-        } catch (IllegalArgumentException
-                | IllegalAccessException e) {
+        } catch (Throwable e) {
             log.error("get field fail.", e);
         }
         return null;
@@ -387,71 +1182,41 @@ public abstract class AbstractBaseDao<T extends PrimaryEntity<ID>, ID extends Se
     }
 
     public Path<?> getProperty(RelationalPath<?> root, String property) {
-        Class<? extends Object> pathClass = root.getClass();
-        try {
-            Field field = pathClass.getDeclaredField(property);
-            return (Path<?>) field.get(root);
-        } catch (NoSuchFieldException | SecurityException
-                | IllegalArgumentException | IllegalAccessException e) {
-            return null;
-        }
+        return pathIndex(root).get(property);
     }
 
     public StringPath getStringProperty(RelationalPath<?> root, String property) {
-        Class<? extends Object> pathClass = root.getClass();
-        try {
-            Field field = pathClass.getDeclaredField(property);
-            return (StringPath) field.get(root);
-        } catch (NoSuchFieldException | SecurityException
-                | IllegalArgumentException | IllegalAccessException e) {
-            return null;
-        }
+        return pathIndex(root).getString(property);
     }
 
     public DateTimePath getDateTimeProperty(RelationalPath<?> root, String property) {
-        Class<? extends Object> pathClass = root.getClass();
-        try {
-            Field field = pathClass.getDeclaredField(property);
-            return (DateTimePath) field.get(root);
-        } catch (NoSuchFieldException | SecurityException
-                | IllegalArgumentException | IllegalAccessException e) {
-            return null;
-        }
+        return pathIndex(root).getDateTime(property);
+    }
+
+    private PathIndex pathIndex(RelationalPath<?> root) {
+        return root == this.root ? pathIndex : PathIndex.of(root);
     }
 
     public BooleanBuilder getPredicate(final Object entity) {
         BooleanBuilder booleanBuilder = new BooleanBuilder();
-        Class entityClass1 = entity.getClass();
-        Field[] fields = entityClass1.getDeclaredFields();
-        for (Field field : fields) {
-            if (!Modifier.isFinal(field.getModifiers())
-                    && !Modifier.isStatic(field.getModifiers())) {
-                Object value = null;
-                try {
-                    field.setAccessible(true);
-                    value = field.get(entity);
-                } catch (IllegalArgumentException
-                        | IllegalAccessException e) {
-                    log.error("get field fail.", e);
+        QueryPlan plan = getQueryPlan(entity.getClass());
+        for (QueryPlan.Accessor accessor : plan.getFieldAccessors()) {
+            Object value = getValue(accessor, entity);
+            if (null != value) {
+                if (accessor.needsConvert(value)) {
+                    value = convert(value, accessor.getFieldType());
                 }
-                if (null != value) {
-                    value = convert(value, field.getType());
-                    Path<?> property = getProperty(root, field.getName());
-                    if (null != property
-                            && property instanceof SimpleExpression) {
-                        SimpleExpression simpleExpression = (SimpleExpression) property;
-                        if (value instanceof Collection || value.getClass().isArray()) {
-                            booleanBuilder.and(simpleExpression.in(value));
-                        } else {
-                            obtainSimpleEQWhere(booleanBuilder, simpleExpression, value);
-                        }
+                SimpleExpression simpleExpression = accessor.getExpression();
+                if (null != simpleExpression) {
+                    if (value instanceof Collection || value.getClass().isArray()) {
+                        booleanBuilder.and(simpleExpression.in(value));
+                    } else {
+                        obtainSimpleEQWhere(booleanBuilder, simpleExpression, value);
                     }
-
                 }
             }
-
         }
-        obtainTimeWhere(booleanBuilder, entity);
+        obtainTimeWhere(booleanBuilder, entity, plan);
         return booleanBuilder;
     }
 
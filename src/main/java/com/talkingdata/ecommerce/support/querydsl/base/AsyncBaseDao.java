@@ -0,0 +1,235 @@
+package com.talkingdata.ecommerce.support.querydsl.base;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.talkingdata.ecommerce.support.querydsl.common.ConnectionContext;
+import com.talkingdata.ecommerce.support.querydsl.common.PrimaryEntity;
+import com.talkingdata.ecommerce.utils.Configs;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * {@link BaseDao} 的异步门面, 每个操作返回 {@link CompletableFuture}.
+ * <p>
+ * 事务外的操作提交到专用的有界线程池执行, JDBC 阻塞不占用 Undertow 工作线程:
+ * <ul>
+ * <li>jdbc.pool.asyncThreads 线程数, 默认与连接池大小(jdbc.pool.maxActive)相同, 更多线程也只会等待连接</li>
+ * <li>jdbc.pool.asyncQueueSize 等待队列长度, 默认1000, 队列满时返回以 {@link RejectedExecutionException} 失败的 future</li>
+ * </ul>
+ * 当前线程在事务中时, 操作直接在当前线程执行并返回已完成的 future:
+ * 事务连接绑定在当前线程且不能并发使用, 这样语句仍在同一事务中, 随事务提交或回滚.
+ * 线程池中的任务不带事务, 每条语句自动提交; 需要事务时在 {@link #supply(Supplier)} 中调用带 @Transactional 的方法.
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+public class AsyncBaseDao<T extends PrimaryEntity<ID>, ID extends Serializable> {
+
+    private static final int THREADS = Configs.getInt("jdbc.pool.asyncThreads", Configs.getInt("jdbc.pool.maxActive", 10));
+
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(THREADS, THREADS,
+            60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(Configs.getInt("jdbc.pool.asyncQueueSize", 1000)),
+            new ThreadFactoryBuilder().setNameFormat("async-dao-%d").setDaemon(true).build(),
+            new ThreadPoolExecutor.AbortPolicy());
+
+    static {
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    private final BaseDao<T, ID> dao;
+
+    private final ConnectionContext connectionContext;
+
+    public AsyncBaseDao(BaseDao<T, ID> dao, ConnectionContext connectionContext) {
+        this.dao = dao;
+        this.connectionContext = connectionContext;
+    }
+
+    /**
+     * @return 异步操作使用的线程池, 可用于 thenApplyAsync 等后续阶段
+     */
+    public static Executor executor() {
+        return EXECUTOR;
+    }
+
+    /**
+     * 按本类的线程和事务规则执行任意阻塞操作, 如 Repository 中自定义的查询
+     */
+    public <R> CompletableFuture<R> supply(Supplier<R> action) {
+        if (connectionContext.getConnection() != null) {
+            CompletableFuture<R> future = new CompletableFuture<>();
+            try {
+                future.complete(action.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+            return future;
+        }
+        try {
+            return CompletableFuture.supplyAsync(action, EXECUTOR);
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<R> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    /**
+     * @see BaseDao#insert(PrimaryEntity)
+     */
+    public CompletableFuture<ID> insert(T record) {
+        return supply(() -> dao.insert(record));
+    }
+
+    /**
+     * @see BaseDao#insert(List)
+     */
+    public CompletableFuture<Integer> insert(List<T> records) {
+        return supply(() -> dao.insert(records));
+    }
+
+    /**
+     * @see BaseDao#insertBatch(List)
+     */
+    public CompletableFuture<List<ID>> insertBatch(List<T> records) {
+        return supply(() -> dao.insertBatch(records));
+    }
+
+    /**
+     * @see BaseDao#insertBatch(List, int, boolean)
+     */
+    public CompletableFuture<List<ID>> insertBatch(List<T> records, int chunkSize, boolean multiRowValues) {
+        return supply(() -> dao.insertBatch(records, chunkSize, multiRowValues));
+    }
+
+    /**
+     * @see BaseDao#upsert(PrimaryEntity)
+     */
+    public CompletableFuture<Integer> upsert(T record) {
+        return supply(() -> dao.upsert(record));
+    }
+
+    /**
+     * @see BaseDao#upsertBatch(List)
+     */
+    public CompletableFuture<int[]> upsertBatch(List<T> records) {
+        return supply(() -> dao.upsertBatch(records));
+    }
+
+    /**
+     * @see BaseDao#updateByPrimaryKey(PrimaryEntity)
+     */
+    public CompletableFuture<Integer> updateByPrimaryKey(T record) {
+        return supply(() -> dao.updateByPrimaryKey(record));
+    }
+
+    /**
+     * @see BaseDao#updateByPrimaryKeySelective(PrimaryEntity)
+     */
+    public CompletableFuture<Integer> updateByPrimaryKeySelective(T record) {
+        return supply(() -> dao.updateByPrimaryKeySelective(record));
+    }
+
+    /**
+     * @see BaseDao#updateByPrimaryKeyBatch(List)
+     */
+    public CompletableFuture<int[]> updateByPrimaryKeyBatch(List<T> records) {
+        return supply(() -> dao.updateByPrimaryKeyBatch(records));
+    }
+
+    /**
+     * @see BaseDao#updateSelectiveBatch(List)
+     */
+    public CompletableFuture<int[]> updateSelectiveBatch(List<T> records) {
+        return supply(() -> dao.updateSelectiveBatch(records));
+    }
+
+    /**
+     * @see BaseDao#deleteByPrimaryKey(Serializable)
+     */
+    public CompletableFuture<Integer> deleteByPrimaryKey(ID id) {
+        return supply(() -> dao.deleteByPrimaryKey(id));
+    }
+
+    /**
+     * @see BaseDao#deleteByPrimaryKeys(Collection)
+     */
+    public CompletableFuture<int[]> deleteByPrimaryKeys(Collection<ID> ids) {
+        return supply(() -> dao.deleteByPrimaryKeys(ids));
+    }
+
+    /**
+     * @see BaseDao#selectByPrimaryKey(Serializable)
+     */
+    public CompletableFuture<T> selectByPrimaryKey(ID id) {
+        return supply(() -> dao.selectByPrimaryKey(id));
+    }
+
+    /**
+     * @see BaseDao#selectByPrimaryKeys(Collection)
+     */
+    public CompletableFuture<Map<ID, T>> selectByPrimaryKeys(Collection<ID> ids) {
+        return supply(() -> dao.selectByPrimaryKeys(ids));
+    }
+
+    /**
+     * @see BaseDao#selectByPrimaryKeys(Collection, boolean)
+     */
+    public CompletableFuture<Map<ID, T>> selectByPrimaryKeys(Collection<ID> ids, boolean parallel) {
+        return supply(() -> dao.selectByPrimaryKeys(ids, parallel));
+    }
+
+    /**
+     * @see BaseDao#findOne(PrimaryEntity)
+     */
+    public CompletableFuture<T> findOne(T record) {
+        return supply(() -> dao.findOne(record));
+    }
+
+    /**
+     * @see BaseDao#findAll(PrimaryEntity)
+     */
+    public CompletableFuture<List<T>> findAll(T record) {
+        return supply(() -> dao.findAll(record));
+    }
+
+    /**
+     * 流式查询, consumer 在执行查询的线程中调用
+     *
+     * @see BaseDao#stream(PrimaryEntity, Consumer)
+     */
+    public CompletableFuture<Long> stream(T record, Consumer<? super T> consumer) {
+        return supply(() -> dao.stream(record, consumer));
+    }
+
+    /**
+     * @see BaseDao#queryByCount(BasePage)
+     */
+    public <P extends BasePage> CompletableFuture<Integer> queryByCount(P page) {
+        return supply(() -> dao.queryByCount(page));
+    }
+
+    /**
+     * @see BaseDao#queryByEstimatedCount(BasePage)
+     */
+    public <P extends BasePage> CompletableFuture<Integer> queryByEstimatedCount(P page) {
+        return supply(() -> dao.queryByEstimatedCount(page));
+    }
+
+    /**
+     * @see BaseDao#queryByList(BasePage)
+     */
+    public <P extends BasePage> CompletableFuture<List<T>> queryByList(P page) {
+        return supply(() -> dao.queryByList(page));
+    }
+}
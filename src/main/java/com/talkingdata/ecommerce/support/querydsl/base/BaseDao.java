@@ -1,9 +1,13 @@
 package com.talkingdata.ecommerce.support.querydsl.base;
 
+import com.mysema.commons.lang.CloseableIterator;
 import com.talkingdata.ecommerce.support.querydsl.common.PrimaryEntity;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * @author wwy
@@ -20,13 +24,49 @@ public interface BaseDao<T extends PrimaryEntity<ID>, ID extends Serializable> {
     ID insert(T record);
 
     /**
-     * 根据实体列表批量插入
+     * 根据实体列表批量插入, 等同于 {@link #insertBatch(List)}
      * 
      * @param records
-     * @return 最后一条主键
+     * @return 插入的行数(不是主键), records为空时返回null; 需要主键时使用 {@link #insertBatch(List)}
      */
     Integer insert(List<T> records);
 
+    /**
+     * 批量插入, 按 jdbc.batch.insertChunkSize 分批, 每批一次 JDBC batch(或一条多行 VALUES 语句)
+     *
+     * @param records 实体列表, 自增主键会回填到实体
+     * @return 各实体的主键, 按传入顺序
+     */
+    List<ID> insertBatch(List<T> records);
+
+    /**
+     * 批量插入
+     *
+     * @param records        实体列表, 自增主键会回填到实体
+     * @param chunkSize      每批条数
+     * @param multiRowValues 是否每批拼成一条 insert ... values (..), (..) 语句
+     * @return 各实体的主键, 按传入顺序
+     */
+    List<ID> insertBatch(List<T> records, int chunkSize, boolean multiRowValues);
+
+    /**
+     * 插入或更新: 一条语句完成, 记录已存在(MySQL 为主键或唯一索引冲突, PostgreSQL/Oracle 为主键冲突)时
+     * 用实体的非空字段更新, 否则插入非空字段. 自增主键会回填到实体(Oracle 除外)
+     *
+     * @param record 实体
+     * @return 影响条数, MySQL 插入为1, 更新为2, 未变化为0
+     */
+    int upsert(T record);
+
+    /**
+     * 批量插入或更新, 按 jdbc.batch.insertChunkSize 分批, 每批一次 JDBC batch, 不回填自增主键.
+     * 某批有记录没有主键时, 清除整个实体缓存
+     *
+     * @param records 实体列表
+     * @return 每批影响的条数
+     */
+    int[] upsertBatch(List<T> records);
+
     /**
      * 根据实体全量更新
      * 
@@ -43,6 +83,30 @@ public interface BaseDao<T extends PrimaryEntity<ID>, ID extends Serializable> {
      */
     int updateByPrimaryKeySelective(T record);
 
+    /**
+     * 根据主键批量全量更新, 按 jdbc.batch.updateChunkSize 分批, 每批一次 JDBC batch
+     *
+     * @param records 实体列表
+     * @return 每批更新的条数
+     */
+    int[] updateByPrimaryKeyBatch(List<T> records);
+
+    /**
+     * 根据主键批量更新实体非空字段, 分批规则同 {@link #updateByPrimaryKeyBatch(List)}
+     *
+     * @param records 实体列表
+     * @return 每批更新的条数
+     */
+    int[] updateSelectiveBatch(List<T> records);
+
+    /**
+     * 根据主键批量删除, 按 jdbc.batch.inChunkSize 分批 IN 删除
+     *
+     * @param ids 主键
+     * @return 每批删除的条数
+     */
+    int[] deleteByPrimaryKeys(Collection<ID> ids);
+
     /**
      * 根据主键查询实体
      * 
@@ -51,6 +115,40 @@ public interface BaseDao<T extends PrimaryEntity<ID>, ID extends Serializable> {
      */
     T selectByPrimaryKey(ID id);
 
+    /**
+     * 实体缓存中该主键条目的版本标识, 内容变化(写操作清除缓存)后版本随之变化, 可作为 ETag.
+     * 不在缓存中时先按主键查询并放入缓存
+     *
+     * @param id 主键
+     * @return 版本标识, 未启用实体缓存、在事务中或记录不存在时返回null
+     */
+    String selectVersion(ID id);
+
+    /**
+     * 登记本次请求稍后要按主键查询的记录, 第一次 selectByPrimaryKey 其中任一主键时合并为一次 IN 查询.
+     * 组装聚合前(如遍历明细查询关联实体时)先登记关联主键, 避免 N+1 查询. 不在请求范围内或在事务中时不做任何事
+     *
+     * @param ids 主键
+     */
+    void prime(Collection<ID> ids);
+
+    /**
+     * 根据主键批量查询, 主键较多时按 jdbc.batch.inChunkSize 分批 IN 查询
+     *
+     * @param ids 主键
+     * @return 主键 -> 实体, 按传入顺序, 不存在的主键不在结果中
+     */
+    Map<ID, T> selectByPrimaryKeys(Collection<ID> ids);
+
+    /**
+     * 根据主键批量查询
+     *
+     * @param ids      主键
+     * @param parallel 事务外且有多批时, 是否在不同连接上并行查询各批
+     * @return 主键 -> 实体, 按传入顺序, 不存在的主键不在结果中
+     */
+    Map<ID, T> selectByPrimaryKeys(Collection<ID> ids, boolean parallel);
+
     /**
      * 根据实体条件查询一条实体
      * 
@@ -67,6 +165,24 @@ public interface BaseDao<T extends PrimaryEntity<ID>, ID extends Serializable> {
      */
     List<T> findAll(T record);
 
+    /**
+     * 根据实体条件流式查询, 结果逐行读取, 内存占用与结果行数无关.
+     * 调用方必须关闭返回的迭代器, 关闭前占用一个数据库连接
+     *
+     * @param record 实体条件
+     * @return 可关闭的实体迭代器
+     */
+    CloseableIterator<T> iterate(T record);
+
+    /**
+     * 根据实体条件流式查询, 逐行交给 consumer 处理, 处理结束或异常时自动关闭
+     *
+     * @param record   实体条件
+     * @param consumer 行处理
+     * @return 处理的行数
+     */
+    long stream(T record, Consumer<? super T> consumer);
+
     /**
      * 根据主键删除
      * 
@@ -84,6 +200,15 @@ public interface BaseDao<T extends PrimaryEntity<ID>, ID extends Serializable> {
      */
     <P extends BasePage> int queryByCount(P page);
 
+    /**
+     * 根据page参数, 估算总count, 不支持估算的数据库返回精确count
+     *
+     * @param page
+     * @param <P>
+     * @return int count
+     */
+    <P extends BasePage> int queryByEstimatedCount(P page);
+
     /**
      * 根据page参数, 查询实体List
      * 
@@ -92,4 +217,11 @@ public interface BaseDao<T extends PrimaryEntity<ID>, ID extends Serializable> {
      * @return 实体list
      */
     <P extends BasePage> List<T> queryByList(P page);
+
+    /**
+     * 异步门面, 各操作在专用线程池中执行并返回 CompletableFuture
+     *
+     * @return 绑定当前dao的异步门面
+     */
+    AsyncBaseDao<T, ID> async();
 }
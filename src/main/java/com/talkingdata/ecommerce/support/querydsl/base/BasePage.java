@@ -25,6 +25,26 @@ public class BasePage {
      */
     private String sort;
 
+    /**
+     * 游标分页: 上一页最后一条记录的排序字段值, 按非主键字段排序时与 lastPrimaryKey 必须同时设置
+     */
+    private Object lastSortValue;
+
+    /**
+     * 游标分页: 上一页最后一条记录的主键
+     */
+    private Object lastPrimaryKey;
+
+    /**
+     * 总数统计方式
+     */
+    private CountStrategy countStrategy = CountStrategy.EXACT;
+
+    /**
+     * 精确count时, 是否与列表查询在不同连接上并行执行
+     */
+    private boolean parallelCount;
+
     /**
      * 分页导航
      */
@@ -102,6 +122,41 @@ public class BasePage {
         this.sort = sort;
     }
 
+    public Object getLastSortValue() {
+        return lastSortValue;
+    }
+
+    public void setLastSortValue(Object lastSortValue) {
+        this.lastSortValue = lastSortValue;
+    }
+
+    public Object getLastPrimaryKey() {
+        return lastPrimaryKey;
+    }
+
+    public void setLastPrimaryKey(Object lastPrimaryKey) {
+        this.lastPrimaryKey = lastPrimaryKey;
+    }
+
+    public CountStrategy getCountStrategy() {
+        return countStrategy;
+    }
+
+    /**
+     * @param countStrategy 为null时使用默认的 {@link CountStrategy#EXACT}
+     */
+    public void setCountStrategy(CountStrategy countStrategy) {
+        this.countStrategy = countStrategy == null ? CountStrategy.EXACT : countStrategy;
+    }
+
+    public boolean isParallelCount() {
+        return parallelCount;
+    }
+
+    public void setParallelCount(boolean parallelCount) {
+        this.parallelCount = parallelCount;
+    }
+
     public Integer getRows() {
         if (null == this.rows) {
             return pageSize;
@@ -1,14 +1,25 @@
 package com.talkingdata.ecommerce.support.querydsl.base;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.talkingdata.ecommerce.support.transaction.Propagation;
 import com.talkingdata.ecommerce.support.transaction.Transactional;
+import com.talkingdata.ecommerce.support.querydsl.common.ConnectionContext;
 import com.talkingdata.ecommerce.support.querydsl.common.PrimaryEntity;
+import com.talkingdata.ecommerce.utils.Configs;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
+import javax.inject.Inject;
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * @author wwy
@@ -19,6 +30,16 @@ public abstract class BaseService<T extends PrimaryEntity<ID>, ID extends Serial
 
     private static final Logger log = LoggerFactory.getLogger(Service.class);
 
+    /**
+     * 并行count使用的线程池
+     */
+    private static final ExecutorService COUNT_EXECUTOR = Executors.newFixedThreadPool(
+            Configs.getInt("jdbc.pool.countThreads", 4),
+            new ThreadFactoryBuilder().setNameFormat("count-query-%d").setDaemon(true).build());
+
+    @Inject
+    private ConnectionContext connectionContext;
+
     public BaseService() {}
 
     @PostConstruct
@@ -43,12 +64,37 @@ public abstract class BaseService<T extends PrimaryEntity<ID>, ID extends Serial
     public void clean() {
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public abstract BaseDao<T, ID> getDao();
 
     public ID insert(T t) throws Exception {
         return this.getDao().insert(t);
     }
 
+    public List<ID> insertBatch(List<T> list) throws Exception {
+        return this.getDao().insertBatch(list);
+    }
+
+    public int upsert(T t) throws Exception {
+        return this.getDao().upsert(t);
+    }
+
+    public int[] upsertBatch(List<T> list) throws Exception {
+        return this.getDao().upsertBatch(list);
+    }
+
+    public int[] updateByPrimaryKeyBatch(List<T> list) throws Exception {
+        return this.getDao().updateByPrimaryKeyBatch(list);
+    }
+
+    public int[] updateSelectiveBatch(List<T> list) throws Exception {
+        return this.getDao().updateSelectiveBatch(list);
+    }
+
+    public int[] deleteByPrimaryKeys(Collection<ID> values) throws Exception {
+        return this.getDao().deleteByPrimaryKeys(values);
+    }
+
     public int updateByPrimaryKey(T t) throws Exception {
         return this.getDao().updateByPrimaryKey(t);
     }
@@ -57,24 +103,64 @@ public abstract class BaseService<T extends PrimaryEntity<ID>, ID extends Serial
         return this.getDao().updateByPrimaryKeySelective(t);
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public T selectByPrimaryKey(ID value) throws Exception {
         return this.getDao().selectByPrimaryKey(value);
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Map<ID, T> selectByPrimaryKeys(Collection<ID> values) throws Exception {
+        return this.getDao().selectByPrimaryKeys(values);
+    }
+
     public void deleteByPrimaryKey(ID value) throws Exception {
         this.getDao().deleteByPrimaryKey(value);
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public int queryByCount(BasePage page) throws Exception {
         return this.getDao().queryByCount(page);
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<T> queryByList(BasePage page) throws Exception {
+        // 反序列化等绕过 setter 时可能为null, 按默认的精确count处理
+        CountStrategy countStrategy = page.getCountStrategy() == null ? CountStrategy.EXACT : page.getCountStrategy();
+        switch (countStrategy) {
+            case NONE:
+            case HAS_NEXT:
+                return this.getDao().queryByList(page);
+            case ESTIMATED:
+                page.getPager().setRowCount(this.getDao().queryByEstimatedCount(page));
+                return this.getDao().queryByList(page);
+            default:
+                break;
+        }
+        // count在独立线程上执行, 不共享当前线程绑定的连接, 事务中只能顺序执行
+        if (page.isParallelCount() && !inTransaction()) {
+            CompletableFuture<Integer> rowCount = CompletableFuture.supplyAsync(() -> this.getDao().queryByCount(page),
+                    COUNT_EXECUTOR);
+            List<T> list = this.getDao().queryByList(page);
+            try {
+                page.getPager().setRowCount(rowCount.join());
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+            return list;
+        }
         Integer rowCount = this.queryByCount(page);
         page.getPager().setRowCount(rowCount);
         return this.getDao().queryByList(page);
     }
 
+    /**
+     * 当前线程是否绑定了事务连接, 无法判断时按在事务中处理
+     */
+    private boolean inTransaction() {
+        return connectionContext == null || connectionContext.getConnection() != null;
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public T queryBySingle(BasePage page) throws Exception {
         page.setPageSize(1);
         List<T> results = this.getDao().queryByList(page);
@@ -0,0 +1,30 @@
+package com.talkingdata.ecommerce.support.querydsl.base;
+
+/**
+ * 分页查询时总数的统计方式
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+public enum CountStrategy {
+
+    /**
+     * 精确count, 与列表查询各执行一次
+     */
+    EXACT,
+
+    /**
+     * 不统计总数
+     */
+    NONE,
+
+    /**
+     * 不统计总数, 多取一条记录判断是否有下一页, 结果写入 {@link Pager#isHasNext()}
+     */
+    HAS_NEXT,
+
+    /**
+     * 估算总数, MySQL 下取 EXPLAIN 的 rows, 其它数据库退化为精确count
+     */
+    ESTIMATED
+}
@@ -0,0 +1,246 @@
+package com.talkingdata.ecommerce.support.querydsl.base;
+
+import com.querydsl.core.QueryException;
+import com.querydsl.core.types.Path;
+import com.querydsl.sql.ColumnMetadata;
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.OracleTemplates;
+import com.querydsl.sql.PostgreSQLTemplates;
+import com.querydsl.sql.RelationalPath;
+import com.querydsl.sql.SQLTemplates;
+import com.querydsl.sql.SchemaAndTable;
+import com.talkingdata.ecommerce.support.querydsl.common.ConnectionContext;
+import com.talkingdata.ecommerce.support.querydsl.common.RoutingDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * QueryDSL clause 表达不了的写语句(多行 VALUES、upsert 等)的拼接和执行.
+ * <p>
+ * 表名、列名按 {@link Configuration} 中的覆盖和方言引用规则输出, 参数通过 {@link Configuration#set} 绑定,
+ * 与 QueryDSL 生成的语句保持一致; 连接规则与 ContextConnectionProvider 相同:
+ * 事务中使用绑定的连接并按事务剩余时间设置超时, 否则从主库借出并在执行后归还.
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+final class DmlSupport {
+
+    private static final Logger log = LoggerFactory.getLogger(DmlSupport.class);
+
+    @FunctionalInterface
+    interface StatementCallback<R> {
+        R doInConnection(Connection connection) throws SQLException;
+    }
+
+    private final RelationalPath<?> root;
+
+    private final Configuration configuration;
+
+    private final ConnectionContext connectionContext;
+
+    private final DataSource dataSource;
+
+    private final String table;
+
+    DmlSupport(RelationalPath<?> root, Configuration configuration, ConnectionContext connectionContext,
+               DataSource dataSource) {
+        this.root = root;
+        this.configuration = configuration;
+        this.connectionContext = connectionContext;
+        this.dataSource = dataSource;
+        SQLTemplates templates = configuration.getTemplates();
+        SchemaAndTable schemaAndTable = configuration.getOverride(root.getSchemaAndTable());
+        String table = templates.quoteIdentifier(schemaAndTable.getTable());
+        if (templates.isPrintSchema() && schemaAndTable.getSchema() != null && !schemaAndTable.getSchema().isEmpty()) {
+            table = templates.quoteIdentifier(schemaAndTable.getSchema()) + "." + table;
+        }
+        this.table = table;
+    }
+
+    SQLTemplates getTemplates() {
+        return configuration.getTemplates();
+    }
+
+    /**
+     * @return 引用后的表名, 按配置带 schema
+     */
+    String table() {
+        return table;
+    }
+
+    /**
+     * @return 引用后的列名
+     */
+    String column(Path<?> path) {
+        String name = configuration.getColumnOverride(root.getSchemaAndTable(), ColumnMetadata.getName(path));
+        return configuration.getTemplates().quoteIdentifier(name);
+    }
+
+    /**
+     * 逗号分隔的列名
+     */
+    String columns(List<Path<?>> paths) {
+        StringBuilder builder = new StringBuilder();
+        for (Path<?> path : paths) {
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+            builder.append(column(path));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 渲染单行 upsert 语句, 参数依次为 columns 的值:
+     * <ul>
+     * <li>MySQL: insert ... on duplicate key update, 冲突可以来自主键或任一唯一索引</li>
+     * <li>PostgreSQL: insert ... on conflict (主键) do update</li>
+     * <li>Oracle: merge into ... using (select ... from dual) on (主键)</li>
+     * </ul>
+     * 主键不在 columns 中时, PostgreSQL/Oracle 不会发生冲突, 等同于插入.
+     *
+     * @param columns    插入的列
+     * @param primaryKey 主键列
+     */
+    String upsert(List<Path<?>> columns, Path<?> primaryKey) {
+        SQLTemplates templates = configuration.getTemplates();
+        List<Path<?>> updates = new ArrayList<>(columns);
+        updates.remove(primaryKey);
+        StringBuilder sql = new StringBuilder();
+        if (templates instanceof OracleTemplates && columns.contains(primaryKey)) {
+            sql.append("merge into ").append(table).append(" t\nusing (select ");
+            for (int i = 0; i < columns.size(); i++) {
+                sql.append(i == 0 ? "? " : ", ? ").append(column(columns.get(i)));
+            }
+            sql.append(" from dual) s\non (t.").append(column(primaryKey)).append(" = s.").append(column(primaryKey)).append(")");
+            if (!updates.isEmpty()) {
+                sql.append("\nwhen matched then update set ");
+                appendAssignments(sql, updates, "t.%1$s = s.%1$s");
+            }
+            sql.append("\nwhen not matched then insert (").append(columns(columns)).append(") values (");
+            for (int i = 0; i < columns.size(); i++) {
+                sql.append(i == 0 ? "s." : ", s.").append(column(columns.get(i)));
+            }
+            return sql.append(")").toString();
+        }
+        sql.append("insert into ").append(table).append(" (").append(columns(columns)).append(")\nvalues (");
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
+        if (templates instanceof OracleTemplates) {
+            return sql.toString();
+        } else if (templates instanceof PostgreSQLTemplates) {
+            sql.append("\non conflict (").append(column(primaryKey)).append(")");
+            if (updates.isEmpty()) {
+                sql.append(" do nothing");
+            } else {
+                sql.append(" do update set ");
+                appendAssignments(sql, updates, "%1$s = excluded.%1$s");
+            }
+        } else {
+            // 唯一索引冲突时让 LAST_INSERT_ID 返回已有记录的主键, 使生成主键对插入和更新都可用
+            sql.append("\non duplicate key update ");
+            String key = column(primaryKey);
+            sql.append(key).append(" = last_insert_id(").append(key).append(")");
+            if (!updates.isEmpty()) {
+                sql.append(", ");
+                appendAssignments(sql, updates, "%1$s = values(%1$s)");
+            }
+        }
+        return sql.toString();
+    }
+
+    private void appendAssignments(StringBuilder sql, List<Path<?>> paths, String format) {
+        for (int i = 0; i < paths.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(String.format(format, column(paths.get(i))));
+        }
+    }
+
+    /**
+     * 准备返回生成主键的 insert 语句, Oracle 默认返回 ROWID, 需要指定主键列
+     */
+    PreparedStatement prepareInsert(Connection connection, String sql, Path<?> primaryKey) throws SQLException {
+        if (configuration.getTemplates() instanceof OracleTemplates) {
+            return connection.prepareStatement(sql, new String[]{
+                    configuration.getColumnOverride(root.getSchemaAndTable(), ColumnMetadata.getName(primaryKey))});
+        }
+        return connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+    }
+
+    void set(PreparedStatement stmt, Path<?> path, int index, Object value) throws SQLException {
+        configuration.set(stmt, path, index, value);
+    }
+
+    Configuration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * 在写连接上执行
+     *
+     * @param sql      用于日志和异常信息
+     * @param callback 语句操作
+     */
+    <R> R execute(String sql, StatementCallback<R> callback) {
+        Connection bound = connectionContext.getConnection();
+        if (log.isDebugEnabled()) {
+            log.debug(sql);
+        }
+        try {
+            if (bound != null) {
+                return callback.doInConnection(bound);
+            }
+            try (Connection connection = dataSource.getConnection()) {
+                return callback.doInConnection(connection);
+            }
+        } catch (SQLException e) {
+            throw configuration.translate(sql, Collections.emptyList(), e);
+        }
+    }
+
+    /**
+     * 在读连接上执行, 与 SQLQueryFactory 的查询相同: 事务中使用绑定的连接, 否则配置了从库时从从库借出
+     *
+     * @param callback 语句操作
+     */
+    <R> R read(StatementCallback<R> callback) throws SQLException {
+        Connection bound = connectionContext.getConnection();
+        if (bound != null) {
+            return callback.doInConnection(bound);
+        }
+        try (Connection connection = dataSource instanceof RoutingDataSource
+                ? ((RoutingDataSource) dataSource).getReadConnection() : dataSource.getConnection()) {
+            return callback.doInConnection(connection);
+        }
+    }
+
+    /**
+     * 事务设置了超时时, 按剩余时间设置语句超时
+     */
+    void applyTimeout(Connection connection, PreparedStatement stmt) throws SQLException {
+        Long deadline = connectionContext.getDeadline();
+        if (deadline == null || connection != connectionContext.getConnection()) {
+            return;
+        }
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+            throw new QueryException("Transaction timed out: deadline was " + new Date(deadline));
+        }
+        stmt.setQueryTimeout((int) Math.max(1, (remaining + 999) / 1000));
+    }
+}
@@ -0,0 +1,116 @@
+package com.talkingdata.ecommerce.support.querydsl.base;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.talkingdata.ecommerce.utils.Configs;
+
+import java.io.Serializable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按主键缓存实体的二级缓存, 容量有限, 写入后定时过期, 超出容量按 LRU 淘汰.
+ * <p>
+ * 配置项(可按实体类名单独覆盖, 如 cache.entity.TestDemo.maximumSize):
+ * <ul>
+ * <li>cache.entity.maximumSize 最大条数, 默认10000</li>
+ * <li>cache.entity.expireSeconds 写入后过期秒数, 默认300</li>
+ * </ul>
+ * 缓存中保存的是实体的独立副本, 放入和取出时都复制一份({@link EntityCopier}):
+ * 调用方修改 selectByPrimaryKey 返回的实体(未保存或事务回滚)不会影响缓存和其他线程.
+ * <p>
+ * 每次放入生成新的版本标识({@link #getVersion}), 条目存在期间内容不变, 清除或过期后重新放入即换新版本,
+ * 可直接用作 HTTP ETag, 判断条件请求时不需要取出和序列化实体. 版本含进程启动时的随机前缀, 重启和多实例间不会重复.
+ * <p>
+ * 一致性约定:
+ * <ul>
+ * <li>事务内的按主键查询不读也不写缓存, 直接使用事务连接</li>
+ * <li>缓存只由事务外的主库查询回填: 启用缓存的实体按主键查询时不走从库,
+ * 否则从库延迟期间会把写入前的旧数据写回刚清除的缓存, 并一直保留到过期</li>
+ * <li>写操作按主键清除缓存, 事务内的写在事务结束后再清除一次</li>
+ * </ul>
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+public class EntityCache<ID extends Serializable, T> {
+
+    /**
+     * 版本前缀, 每个进程不同
+     */
+    private static final String VERSION_PREFIX = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36) + "-";
+
+    private static final AtomicLong VERSION_SEQUENCE = new AtomicLong();
+
+    private final Cache<ID, Entry<T>> cache;
+
+    private final EntityCopier<T> copier;
+
+    public EntityCache(Class<T> entityClass) {
+        String entityName = entityClass.getSimpleName();
+        this.copier = new EntityCopier<>(entityClass);
+        long maximumSize = getLong(entityName, "maximumSize", 10000);
+        long expireSeconds = getLong(entityName, "expireSeconds", 300);
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    private static long getLong(String entityName, String key, long defaultValue) {
+        Integer global = Configs.getInt("cache.entity." + key, (int) defaultValue);
+        return Configs.getInt("cache.entity." + entityName + "." + key, global);
+    }
+
+    public T get(ID id) {
+        Entry<T> entry = id == null ? null : cache.getIfPresent(id);
+        return entry == null ? null : copier.copy(entry.entity);
+    }
+
+    /**
+     * @return 缓存条目的版本标识, 不在缓存中时返回null
+     */
+    public String getVersion(ID id) {
+        Entry<T> entry = id == null ? null : cache.getIfPresent(id);
+        return entry == null ? null : entry.version;
+    }
+
+    public void put(ID id, T entity) {
+        if (id != null && entity != null) {
+            cache.put(id, new Entry<>(copier.copy(entity), VERSION_PREFIX + Long.toString(VERSION_SEQUENCE.incrementAndGet(), 36)));
+        }
+    }
+
+    public void invalidate(ID id) {
+        if (id != null) {
+            cache.invalidate(id);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static final class Entry<T> {
+
+        private final T entity;
+
+        private final String version;
+
+        Entry(T entity, String version) {
+            this.entity = entity;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.talkingdata.ecommerce.support.querydsl.base;
+
+import com.google.common.collect.ImmutableList;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 实体的独立副本, 供 {@link EntityCache} 存取时使用.
+ * <p>
+ * 与 BeanCopier 不同, 按字段原样复制同一类型(包括父类)的全部非 static、非 final 字段, 不做类型转换也不跳过不支持的类型.
+ * 字段值中的 {@link Date}(包括 java.sql 子类)和数组会复制一份, 其他值(String、数值、joda 时间等)按不可变对象共用.
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+final class EntityCopier<T> {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Class<T> type;
+
+    private final MethodHandle constructor;
+
+    private final List<MethodHandle[]> fields;
+
+    EntityCopier(Class<T> type) {
+        this.type = type;
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            this.constructor = lookup.findConstructor(type, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException("no public no-arg constructor in " + type.getName(), e);
+        }
+        ImmutableList.Builder<MethodHandle[]> fields = ImmutableList.builder();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())) {
+                    continue;
+                }
+                field.setAccessible(true);
+                try {
+                    fields.add(new MethodHandle[]{lookup.unreflectGetter(field).asType(GETTER_TYPE),
+                            lookup.unreflectSetter(field).asType(SETTER_TYPE)});
+                } catch (IllegalAccessException e) {
+                    throw new IllegalArgumentException("can not access " + c.getName() + "." + field.getName(), e);
+                }
+            }
+        }
+        this.fields = fields.build();
+    }
+
+    /**
+     * @return 副本, entity 为null时返回null
+     */
+    @SuppressWarnings("unchecked")
+    T copy(T entity) {
+        if (entity == null) {
+            return null;
+        }
+        try {
+            Object copy = (Object) constructor.invokeExact();
+            for (MethodHandle[] field : fields) {
+                Object value = (Object) field[0].invokeExact((Object) entity);
+                field[1].invokeExact(copy, detach(value));
+            }
+            return (T) copy;
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("can not copy " + type.getName(), e);
+        }
+    }
+
+    private static Object detach(Object value) {
+        if (value instanceof Date) {
+            return ((Date) value).clone();
+        }
+        if (value != null && value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            Object copy = Array.newInstance(value.getClass().getComponentType(), length);
+            System.arraycopy(value, 0, copy, 0, length);
+            return copy;
+        }
+        return value;
+    }
+}
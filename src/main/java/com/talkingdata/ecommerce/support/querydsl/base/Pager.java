@@ -21,6 +21,10 @@ public class Pager {
     private String orderField;
     private boolean orderDirection;
     private boolean pageEnabled;
+    // 游标(keyset)分页, 开启后按 (排序字段, 主键) 定位, 不再使用 offset
+    private boolean keysetEnabled;
+    // 是否有下一页, 仅 CountStrategy.HAS_NEXT 时有效
+    private boolean hasNext;
 
     // 页面显示分页按钮个数
     private int length = 6;
@@ -192,4 +196,20 @@ public class Pager {
         this.pageEnabled = pageEnabled;
     }
 
+    public boolean isKeysetEnabled() {
+        return keysetEnabled;
+    }
+
+    public void setKeysetEnabled(boolean keysetEnabled) {
+        this.keysetEnabled = keysetEnabled;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+
 }
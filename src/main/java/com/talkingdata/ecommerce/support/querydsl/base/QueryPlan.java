@@ -0,0 +1,208 @@
+package com.talkingdata.ecommerce.support.querydsl.base;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.dsl.SimpleExpression;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 查询条件对象(实体或分页参数)的预编译访问计划.
+ * <p>
+ * 每个条件类只解析一次字段, 把字段读取编译成 {@link MethodHandle}, 并与 root 上的列 {@link Path} 绑定,
+ * 之后构建 predicate 时只需遍历访问器, 不再做反射查找.
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+public final class QueryPlan {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final String OPERATOR_SUFFIX = "Operator";
+
+    private final Class<?> type;
+
+    /**
+     * 按声明顺序排列的非static/final字段, 用于 getPredicate
+     */
+    private final List<Accessor> fieldAccessors;
+
+    /**
+     * 按 root 列顺序排列、在条件类上有同名字段的列, 用于 getPagePredicate
+     */
+    private final List<Accessor> columnAccessors;
+
+    /**
+     * createTime1/createTime2/updateTime1/updateTime2 等时间区间字段
+     */
+    private final Map<String, MethodHandle> timeGetters;
+
+    private final boolean hasOperator;
+
+    private QueryPlan(Class<?> type, List<Accessor> fieldAccessors, List<Accessor> columnAccessors,
+                      Map<String, MethodHandle> timeGetters, boolean hasOperator) {
+        this.type = type;
+        this.fieldAccessors = fieldAccessors;
+        this.columnAccessors = columnAccessors;
+        this.timeGetters = timeGetters;
+        this.hasOperator = hasOperator;
+    }
+
+    /**
+     * 为条件类构建访问计划
+     *
+     * @param type     条件类
+     * @param columns  root.getColumns()
+     * @param resolver 字段名到 root 上 path 的解析
+     * @return 访问计划
+     */
+    public static QueryPlan build(Class<?> type, List<Path<?>> columns, Function<String, Path<?>> resolver) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        Field[] fields = type.getDeclaredFields();
+        Map<String, Field> fieldMap = Maps.newHashMap();
+        boolean hasOperator = false;
+        for (Field field : fields) {
+            fieldMap.put(field.getName(), field);
+            if (field.getName().contains(OPERATOR_SUFFIX)) {
+                hasOperator = true;
+            }
+        }
+
+        ImmutableList.Builder<Accessor> fieldAccessors = ImmutableList.builder();
+        for (Field field : fields) {
+            if (!Modifier.isFinal(field.getModifiers())
+                    && !Modifier.isStatic(field.getModifiers())) {
+                fieldAccessors.add(new Accessor(field.getName(), field.getType(), resolver.apply(field.getName()),
+                        getter(lookup, field), null));
+            }
+        }
+
+        ImmutableList.Builder<Accessor> columnAccessors = ImmutableList.builder();
+        for (Path<?> column : columns) {
+            String name = column.getMetadata().getName();
+            Field field = fieldMap.get(name);
+            if (field == null) {
+                continue;
+            }
+            Field operatorField = fieldMap.get(name + OPERATOR_SUFFIX);
+            columnAccessors.add(new Accessor(name, field.getType(), resolver.apply(name), getter(lookup, field),
+                    operatorField == null ? null : getter(lookup, operatorField)));
+        }
+
+        ImmutableMap.Builder<String, MethodHandle> timeGetters = ImmutableMap.builder();
+        for (String name : new String[]{"createTime1", "createTime2", "updateTime1", "updateTime2"}) {
+            Field field = fieldMap.get(name);
+            if (field != null) {
+                timeGetters.put(name, getter(lookup, field));
+            }
+        }
+        return new QueryPlan(type, fieldAccessors.build(), columnAccessors.build(), timeGetters.build(), hasOperator);
+    }
+
+    private static MethodHandle getter(MethodHandles.Lookup lookup, Field field) {
+        try {
+            field.setAccessible(true);
+            return lookup.unreflectGetter(field).asType(GETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("can not access field " + field, e);
+        }
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public List<Accessor> getFieldAccessors() {
+        return fieldAccessors;
+    }
+
+    public List<Accessor> getColumnAccessors() {
+        return columnAccessors;
+    }
+
+    /**
+     * 条件类是否声明了 xxxOperator 字段, 有则按分页条件构建
+     */
+    public boolean hasOperator() {
+        return hasOperator;
+    }
+
+    /**
+     * @param name 时间区间字段名, 如 createTime1
+     * @return 字段读取器, 不存在时返回null
+     */
+    public MethodHandle getTimeGetter(String name) {
+        return timeGetters.get(name);
+    }
+
+    /**
+     * 单个字段的访问器
+     */
+    public static final class Accessor {
+
+        private final String name;
+
+        private final Class<?> fieldType;
+
+        private final SimpleExpression<?> expression;
+
+        private final MethodHandle getter;
+
+        private final MethodHandle operatorGetter;
+
+        private final boolean enumType;
+
+        Accessor(String name, Class<?> fieldType, Path<?> path, MethodHandle getter, MethodHandle operatorGetter) {
+            this.name = name;
+            this.fieldType = fieldType;
+            this.expression = path instanceof SimpleExpression ? (SimpleExpression<?>) path : null;
+            this.getter = getter;
+            this.operatorGetter = operatorGetter;
+            this.enumType = fieldType.isEnum();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Class<?> getFieldType() {
+            return fieldType;
+        }
+
+        /**
+         * @return root 上对应的列, 不是 {@link SimpleExpression} 或不存在时为null
+         */
+        public SimpleExpression<?> getExpression() {
+            return expression;
+        }
+
+        /**
+         * 字段类型或值是否是枚举, 需要转换
+         */
+        public boolean needsConvert(Object value) {
+            return enumType || value.getClass().isEnum();
+        }
+
+        public Object get(Object target) throws Throwable {
+            return (Object) getter.invokeExact(target);
+        }
+
+        public boolean hasOperator() {
+            return operatorGetter != null;
+        }
+
+        public Object getOperator(Object target) throws Throwable {
+            return (Object) operatorGetter.invokeExact(target);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.talkingdata.ecommerce.support.querydsl.base;
+
+import com.talkingdata.ecommerce.support.querydsl.common.PrimaryEntity;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * 请求范围内的主键查询缓存和合并.
+ * <p>
+ * 请求开始时 {@link #open()}, 结束时 {@link #close()}. 期间(事务外)每个 DAO 的 selectByPrimaryKey 结果按主键记住,
+ * 同一请求内重复查询同一主键只访问一次数据库. 写操作会清除对应记录.
+ * <p>
+ * selectByPrimaryKey 需要立即返回实体, 单独调用时只能立即查询该主键, 不会自动合并;
+ * 要把多个主键合并为一次 selectByPrimaryKeys(IN 查询), 需在循环前用 {@link BaseDao#prime(Collection)} 登记,
+ * 之后第一次查询其中任一主键时, 该 DAO 所有已登记未查询的主键一起查询, 其余主键直接命中.
+ * 只在当前线程生效, 事务中不使用.
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+public final class RequestLoader {
+
+    private static final ThreadLocal<RequestLoader> current = new ThreadLocal<>();
+
+    private static final Object NOT_FOUND = new Object();
+
+    private final Map<BaseDao<?, ?>, Batch<?, ?>> batches = new IdentityHashMap<>();
+
+    private long queries;
+
+    private RequestLoader() {
+    }
+
+    /**
+     * 为当前线程开启请求范围
+     */
+    public static RequestLoader open() {
+        RequestLoader loader = new RequestLoader();
+        current.set(loader);
+        return loader;
+    }
+
+    /**
+     * @return 当前线程的 loader, 不在请求范围内时返回null
+     */
+    public static RequestLoader current() {
+        return current.get();
+    }
+
+    public static void close() {
+        current.remove();
+    }
+
+    /**
+     * 登记要查询的主键, 返回的 Supplier 第一次取值时把该 DAO 所有已登记未查询的主键合并为一次查询
+     */
+    public <T extends PrimaryEntity<ID>, ID extends Serializable> Supplier<T> load(BaseDao<T, ID> dao, ID id) {
+        Batch<T, ID> batch = batch(dao);
+        if (id != null && !batch.loaded.containsKey(id)) {
+            batch.pending.add(id);
+        }
+        return () -> batch.get(id);
+    }
+
+    /**
+     * 登记多个主键
+     */
+    public <T extends PrimaryEntity<ID>, ID extends Serializable> void prime(BaseDao<T, ID> dao, Iterable<ID> ids) {
+        Batch<T, ID> batch = batch(dao);
+        for (ID id : ids) {
+            if (id != null && !batch.loaded.containsKey(id)) {
+                batch.pending.add(id);
+            }
+        }
+    }
+
+    public void evict(BaseDao<?, ?> dao, Object id) {
+        Batch<?, ?> batch = batches.get(dao);
+        if (batch != null) {
+            batch.loaded.remove(id);
+        }
+    }
+
+    public void evictAll(BaseDao<?, ?> dao) {
+        Batch<?, ?> batch = batches.get(dao);
+        if (batch != null) {
+            batch.loaded.clear();
+        }
+    }
+
+    /**
+     * @return 本次请求实际执行的批量查询次数
+     */
+    public long getQueries() {
+        return queries;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends PrimaryEntity<ID>, ID extends Serializable> Batch<T, ID> batch(BaseDao<T, ID> dao) {
+        return (Batch<T, ID>) batches.computeIfAbsent(dao, d -> new Batch<>(dao));
+    }
+
+    private final class Batch<T extends PrimaryEntity<ID>, ID extends Serializable> {
+
+        private final BaseDao<T, ID> dao;
+
+        private final Map<ID, Object> loaded = new HashMap<>();
+
+        private final Set<ID> pending = new LinkedHashSet<>();
+
+        Batch(BaseDao<T, ID> dao) {
+            this.dao = dao;
+        }
+
+        @SuppressWarnings("unchecked")
+        T get(ID id) {
+            if (id == null) {
+                return null;
+            }
+            Object value = loaded.get(id);
+            if (value == null) {
+                pending.add(id);
+                dispatch();
+                value = loaded.get(id);
+            }
+            return value == NOT_FOUND ? null : (T) value;
+        }
+
+        private void dispatch() {
+            List<ID> ids = new ArrayList<>(pending);
+            pending.clear();
+            Map<ID, T> rows = dao.selectByPrimaryKeys(ids);
+            queries++;
+            for (ID key : ids) {
+                T row = rows.get(key);
+                loaded.put(key, row == null ? NOT_FOUND : row);
+            }
+        }
+    }
+}
@@ -1,7 +1,13 @@
 package com.talkingdata.ecommerce.support.querydsl.codegen;
 
 import com.google.common.base.Function;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import com.mysema.codegen.CodeWriter;
 import com.mysema.codegen.model.ClassType;
 import com.mysema.codegen.model.Parameter;
@@ -20,6 +26,8 @@ import javax.annotation.Generated;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
@@ -39,12 +47,35 @@ public class SimpleBeanSerializer implements Serializer {
             return new Parameter(input.getName(), input.getType());
         }
     };
+    /**
+     * 可以直接用 JsonReader 读取的类型 -> 读取表达式
+     */
+    private static final Map<String, String> JSON_READERS = ImmutableMap.<String, String>builder()
+            .put(String.class.getName(), "in.nextString()")
+            .put(Integer.class.getName(), "in.nextInt()")
+            .put(int.class.getName(), "in.nextInt()")
+            .put(Long.class.getName(), "in.nextLong()")
+            .put(long.class.getName(), "in.nextLong()")
+            .put(Short.class.getName(), "(short) in.nextInt()")
+            .put(short.class.getName(), "(short) in.nextInt()")
+            .put(Byte.class.getName(), "(byte) in.nextInt()")
+            .put(byte.class.getName(), "(byte) in.nextInt()")
+            .put(Double.class.getName(), "in.nextDouble()")
+            .put(double.class.getName(), "in.nextDouble()")
+            .put(Float.class.getName(), "(float) in.nextDouble()")
+            .put(float.class.getName(), "(float) in.nextDouble()")
+            .put(Boolean.class.getName(), "in.nextBoolean()")
+            .put(boolean.class.getName(), "in.nextBoolean()")
+            .put(BigDecimal.class.getName(), "new java.math.BigDecimal(in.nextString())")
+            .put(BigInteger.class.getName(), "new java.math.BigInteger(in.nextString())")
+            .build();
     private final boolean propertyAnnotations;
     private final List<Type> interfaces;
     private final String javadocSuffix;
     private boolean addToString;
     private boolean addFullConstructor;
     private boolean printSupertype;
+    private boolean addTypeAdapter = true;
 
     public SimpleBeanSerializer() {
         this(true, " is a Querydsl bean type");
@@ -104,6 +135,15 @@ public class SimpleBeanSerializer implements Serializer {
             importedClasses.add(DateTimeFormat.class.getName());
         }
 
+        if (this.addTypeAdapter) {
+            importedClasses.add(Gson.class.getName());
+            importedClasses.add(TypeAdapter.class.getName());
+            importedClasses.add(JsonReader.class.getName());
+            importedClasses.add(JsonToken.class.getName());
+            importedClasses.add(JsonWriter.class.getName());
+            importedClasses.add(IOException.class.getName());
+        }
+
         writer.importClasses((String[])importedClasses.toArray(new String[importedClasses.size()]));
         writer.javadoc(new String[]{simpleName + this.javadocSuffix});
         var6 = model.getAnnotations().iterator();
@@ -176,6 +216,10 @@ public class SimpleBeanSerializer implements Serializer {
             addSetPrimaryKey(writer, primaryKeyProperty);
         }
 
+        if (this.addTypeAdapter) {
+            addTypeAdapter(model, writer);
+        }
+
         this.bodyEnd(model, writer);
         writer.end();
     }
@@ -249,6 +293,87 @@ public class SimpleBeanSerializer implements Serializer {
         writer.end();
     }
 
+    /**
+     * 生成嵌套类 GsonAdapter: 直接读写字段的 Gson TypeAdapter, 由 GsonFactory 在启动时注册.
+     * 字符串、数字、布尔直接读写, 其他类型(如 DateTime)委托给 Gson 中注册的适配器
+     */
+    protected void addTypeAdapter(EntityType model, CodeWriter writer) throws IOException {
+        String simpleName = model.getSimpleName();
+        Collection<Property> properties = model.getProperties();
+        List<Property> delegated = Lists.newArrayList();
+        for (Property property : properties) {
+            if (!JSON_READERS.containsKey(property.getType().getFullName())) {
+                delegated.add(property);
+            }
+        }
+
+        writer.javadoc(simpleName + " 的 JSON 读写, 直接访问字段, 不依赖反射");
+        writer.line("public static final class GsonAdapter extends TypeAdapter<", simpleName, "> {");
+        writer.nl();
+        for (Property property : delegated) {
+            writer.line("    private final TypeAdapter<", writer.getGenericName(true, property.getType()), "> ",
+                    property.getEscapedName(), "Adapter;");
+            writer.nl();
+        }
+        writer.line("    public GsonAdapter(Gson gson) {");
+        for (Property property : delegated) {
+            writer.line("        this.", property.getEscapedName(), "Adapter = gson.getAdapter(",
+                    writer.getRawName(property.getType()), ".class);");
+        }
+        writer.line("    }");
+        writer.nl();
+
+        writer.line("    @Override");
+        writer.line("    public void write(JsonWriter out, ", simpleName, " value) throws IOException {");
+        writer.line("        out.beginObject();");
+        for (Property property : properties) {
+            String name = property.getEscapedName();
+            writer.line("        out.name(\"", name, "\");");
+            if (delegated.contains(property)) {
+                writer.line("        ", name, "Adapter.write(out, value.", name, ");");
+            } else if (property.getType().isPrimitive()) {
+                writer.line("        out.value(value.", name, ");");
+            } else {
+                writer.line("        if (value.", name, " == null) {");
+                writer.line("            out.nullValue();");
+                writer.line("        } else {");
+                writer.line("            out.value(value.", name, ");");
+                writer.line("        }");
+            }
+        }
+        writer.line("        out.endObject();");
+        writer.line("    }");
+        writer.nl();
+
+        writer.line("    @Override");
+        writer.line("    public ", simpleName, " read(JsonReader in) throws IOException {");
+        writer.line("        ", simpleName, " value = new ", simpleName, "();");
+        writer.line("        in.beginObject();");
+        writer.line("        while (in.hasNext()) {");
+        writer.line("            String name = in.nextName();");
+        writer.line("            if (in.peek() == JsonToken.NULL) {");
+        writer.line("                in.nextNull();");
+        writer.line("                continue;");
+        writer.line("            }");
+        writer.line("            switch (name) {");
+        for (Property property : properties) {
+            String name = property.getEscapedName();
+            String reader = delegated.contains(property) ? name + "Adapter.read(in)"
+                    : JSON_READERS.get(property.getType().getFullName());
+            writer.line("                case \"", name, "\":");
+            writer.line("                    value.", name, " = ", reader, ";");
+            writer.line("                    break;");
+        }
+        writer.line("                default:");
+        writer.line("                    in.skipValue();");
+        writer.line("            }");
+        writer.line("        }");
+        writer.line("        in.endObject();");
+        writer.line("        return value;");
+        writer.line("    }");
+        writer.line("}");
+    }
+
     protected void bodyStart(EntityType model, CodeWriter writer) throws IOException {
     }
 
@@ -297,6 +422,10 @@ public class SimpleBeanSerializer implements Serializer {
         this.addFullConstructor = addFullConstructor;
     }
 
+    public void setAddTypeAdapter(boolean addTypeAdapter) {
+        this.addTypeAdapter = addTypeAdapter;
+    }
+
     public void setPrintSupertype(boolean printSupertype) {
         this.printSupertype = printSupertype;
     }
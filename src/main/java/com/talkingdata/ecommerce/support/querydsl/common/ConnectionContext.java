@@ -4,6 +4,9 @@ import javax.inject.Inject;
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 public class ConnectionContext {
 
@@ -11,18 +14,40 @@ public class ConnectionContext {
 
     private final ThreadLocal<Connection> connectionHolder = new ThreadLocal<>();
 
+    /**
+     * 当前事务的截止时间(毫秒时间戳), 未设置超时为null
+     */
+    private final ThreadLocal<Long> deadlineHolder = new ThreadLocal<>();
+
+    /**
+     * 当前事务结束(提交或回滚)后要执行的回调
+     */
+    private final ThreadLocal<List<Runnable>> afterCompletionHolder = new ThreadLocal<>();
+
     @Inject
     public ConnectionContext(DataSource dataSource) {
         this.dataSource = dataSource;
     }
 
     public Connection getConnection(boolean create) {
+        return getConnection(create, false);
+    }
+
+    /**
+     * @param create   没有绑定连接时是否创建并绑定
+     * @param readOnly 创建的连接是否用于只读事务, 配置了从库时从从库获取
+     */
+    public Connection getConnection(boolean create, boolean readOnly) {
         Connection connection = connectionHolder.get();
         if (!create || connection != null) {
             return connection;
         }
         try {
-            connection = dataSource.getConnection();
+            if (readOnly && dataSource instanceof RoutingDataSource) {
+                connection = ((RoutingDataSource) dataSource).getReadConnection();
+            } else {
+                connection = dataSource.getConnection();
+            }
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
@@ -34,7 +59,57 @@ public class ConnectionContext {
         return connectionHolder.get();
     }
 
+    public Long getDeadline() {
+        return deadlineHolder.get();
+    }
+
+    public void setDeadline(Long deadline) {
+        if (deadline == null) {
+            deadlineHolder.remove();
+        } else {
+            deadlineHolder.set(deadline);
+        }
+    }
+
+    /**
+     * 注册事务结束后执行的回调, 当前没有事务时立即执行
+     */
+    public void registerAfterCompletion(Runnable callback) {
+        if (connectionHolder.get() == null) {
+            callback.run();
+            return;
+        }
+        List<Runnable> callbacks = afterCompletionHolder.get();
+        if (callbacks == null) {
+            callbacks = new ArrayList<>();
+            afterCompletionHolder.set(callbacks);
+        }
+        callbacks.add(callback);
+    }
+
+    public List<Runnable> getAfterCompletions() {
+        List<Runnable> callbacks = afterCompletionHolder.get();
+        return callbacks == null ? Collections.emptyList() : callbacks;
+    }
+
+    /**
+     * 重新绑定之前挂起的连接、截止时间和回调, 连接为null时等同于 {@link #removeConnection()}
+     */
+    public void bind(Connection connection, Long deadline, List<Runnable> afterCompletions) {
+        removeConnection();
+        if (connection == null) {
+            return;
+        }
+        connectionHolder.set(connection);
+        setDeadline(deadline);
+        if (!afterCompletions.isEmpty()) {
+            afterCompletionHolder.set(afterCompletions);
+        }
+    }
+
     public void removeConnection() {
         connectionHolder.remove();
+        deadlineHolder.remove();
+        afterCompletionHolder.remove();
     }
 }
@@ -0,0 +1,108 @@
+package com.talkingdata.ecommerce.support.querydsl.common;
+
+import com.querydsl.core.QueryException;
+import com.querydsl.sql.AbstractSQLQuery;
+import com.querydsl.sql.SQLBaseListener;
+import com.querydsl.sql.SQLListenerContext;
+
+import javax.inject.Provider;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Date;
+
+/**
+ * SQLQueryFactory 使用的连接来源.
+ * <p>
+ * 当前线程在事务中时返回 {@link ConnectionContext} 绑定的连接, 使事务方法内的所有语句共享同一连接和事务;
+ * 否则从连接池借出连接(读连接在配置了从库时来自从库), 并在语句结束时归还.
+ * 绑定的连接由 TransactionInterceptor 负责提交和关闭.
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+public class ContextConnectionProvider extends SQLBaseListener implements Provider<Connection> {
+
+    /**
+     * 同 AbstractSQLQuery.PARENT_CONTEXT, 子查询结束时不归还连接
+     */
+    private static final String PARENT_CONTEXT = AbstractSQLQuery.class.getName() + "#PARENT_CONTEXT";
+
+    private final ConnectionContext context;
+
+    private final DataSource dataSource;
+
+    /**
+     * 事务外是否从从库借出连接
+     */
+    private final boolean read;
+
+    public ContextConnectionProvider(ConnectionContext context, DataSource dataSource) {
+        this(context, dataSource, false);
+    }
+
+    public ContextConnectionProvider(ConnectionContext context, DataSource dataSource, boolean read) {
+        this.context = context;
+        this.dataSource = dataSource;
+        this.read = read;
+    }
+
+    @Override
+    public Connection get() {
+        Connection connection = context.getConnection();
+        if (connection != null) {
+            return connection;
+        }
+        try {
+            if (read && dataSource instanceof RoutingDataSource) {
+                return ((RoutingDataSource) dataSource).getReadConnection();
+            }
+            return dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new QueryException(e);
+        }
+    }
+
+    /**
+     * 事务设置了超时时, 按剩余时间设置语句的查询超时
+     */
+    @Override
+    public void preExecute(SQLListenerContext listenerContext) {
+        Long deadline = context.getDeadline();
+        if (deadline == null || listenerContext.getConnection() != context.getConnection()) {
+            return;
+        }
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+            throw new QueryException("Transaction timed out: deadline was " + new Date(deadline));
+        }
+        int seconds = (int) Math.max(1, (remaining + 999) / 1000);
+        try {
+            if (listenerContext.getPreparedStatement() != null) {
+                listenerContext.getPreparedStatement().setQueryTimeout(seconds);
+            }
+            if (listenerContext.getPreparedStatements() != null) {
+                for (PreparedStatement stmt : listenerContext.getPreparedStatements()) {
+                    stmt.setQueryTimeout(seconds);
+                }
+            }
+        } catch (SQLException e) {
+            throw new QueryException(e);
+        }
+    }
+
+    @Override
+    public void end(SQLListenerContext listenerContext) {
+        Connection connection = listenerContext.getConnection();
+        if (connection == null || listenerContext.getData(PARENT_CONTEXT) != null
+                || connection == context.getConnection()) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new QueryException(e);
+        }
+    }
+}
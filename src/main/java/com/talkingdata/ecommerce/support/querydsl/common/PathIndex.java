@@ -0,0 +1,106 @@
+package com.talkingdata.ecommerce.support.querydsl.common;
+
+import com.google.common.collect.ImmutableMap;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.dsl.DateTimePath;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.RelationalPath;
+import com.talkingdata.ecommerce.utils.ConcurrentReferenceHashMap;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+
+/**
+ * RelationalPath 上 属性名 -> Path 的不可变索引.
+ * <p>
+ * 每个 root 只在首次使用时扫描一次查询类的字段, 之后按名字查找都是一次 map 查询;
+ * 找不到的名字直接返回null, 不再抛出并吞掉 {@link NoSuchFieldException}.
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+public final class PathIndex {
+
+    private static final Map<RelationalPath<?>, PathIndex> indexCache = new ConcurrentReferenceHashMap<>(64);
+
+    private final Map<String, Path<?>> paths;
+
+    private final Map<String, StringPath> stringPaths;
+
+    private final Map<String, DateTimePath<?>> dateTimePaths;
+
+    private PathIndex(RelationalPath<?> root) {
+        ImmutableMap.Builder<String, Path<?>> paths = ImmutableMap.builder();
+        ImmutableMap.Builder<String, StringPath> stringPaths = ImmutableMap.builder();
+        ImmutableMap.Builder<String, DateTimePath<?>> dateTimePaths = ImmutableMap.builder();
+        for (Field field : root.getClass().getDeclaredFields()) {
+            int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) || !Modifier.isPublic(modifiers)
+                    || !Path.class.isAssignableFrom(field.getType())) {
+                continue;
+            }
+            Path<?> path;
+            try {
+                path = (Path<?>) field.get(root);
+            } catch (IllegalAccessException e) {
+                continue;
+            }
+            if (path == null) {
+                continue;
+            }
+            paths.put(field.getName(), path);
+            if (path instanceof StringPath) {
+                stringPaths.put(field.getName(), (StringPath) path);
+            } else if (path instanceof DateTimePath) {
+                dateTimePaths.put(field.getName(), (DateTimePath<?>) path);
+            }
+        }
+        this.paths = paths.build();
+        this.stringPaths = stringPaths.build();
+        this.dateTimePaths = dateTimePaths.build();
+    }
+
+    /**
+     * 获取 root 的索引, 不存在时构建并缓存
+     *
+     * @param root 查询类实例
+     * @return 索引
+     */
+    public static PathIndex of(RelationalPath<?> root) {
+        PathIndex index = indexCache.get(root);
+        if (index == null) {
+            index = new PathIndex(root);
+            indexCache.put(root, index);
+        }
+        return index;
+    }
+
+    /**
+     * @param property 属性名
+     * @return 对应的 Path, 不存在时返回null
+     */
+    public Path<?> get(String property) {
+        return property == null ? null : paths.get(property);
+    }
+
+    /**
+     * @param property 属性名
+     * @return 对应的 StringPath, 不存在或类型不符时返回null
+     */
+    public StringPath getString(String property) {
+        return property == null ? null : stringPaths.get(property);
+    }
+
+    /**
+     * @param property 属性名
+     * @return 对应的 DateTimePath, 不存在或类型不符时返回null
+     */
+    public DateTimePath<?> getDateTime(String property) {
+        return property == null ? null : dateTimePaths.get(property);
+    }
+
+    public boolean contains(String property) {
+        return property != null && paths.containsKey(property);
+    }
+}
@@ -39,9 +39,15 @@ public class QueryDslConfig {
     final Logger log = LoggerFactory.getLogger(QueryDslConfig.class);
     private final DataSource dataSource;
     private final Configuration configuration;
+    private final ConnectionContext connectionContext;
 
     private SQLQueryFactory sqlQueryFactory;
 
+    /**
+     * 查询也使用写连接(主库)的 SQLQueryFactory, 没有配置从库时与 sqlQueryFactory 相同
+     */
+    private SQLQueryFactory primaryQueryFactory;
+
     private static volatile QueryDslConfig instance = null;
 
     public static QueryDslConfig getInstance(DataSource dataSource) {
@@ -76,8 +82,19 @@ public class QueryDslConfig {
         configuration.register(new DateTimeType());
         configuration.register(new LocalDateType());
         configuration.register(new LocalTimeType());
-//        Provider<Connection> provider = new SpringConnectionProvider(dataSource);
-        sqlQueryFactory = new SQLQueryFactory(configuration, dataSource);
+        connectionContext = new ConnectionContext(dataSource);
+        // 事务中使用线程绑定的连接, 否则从连接池借出并在语句结束后归还
+        ContextConnectionProvider provider = new ContextConnectionProvider(connectionContext, dataSource);
+        if (dataSource instanceof RoutingDataSource) {
+            // 事务外的查询走从库
+            ContextConnectionProvider readProvider = new ContextConnectionProvider(connectionContext, dataSource, true);
+            sqlQueryFactory = new ReadWriteSQLQueryFactory(configuration, provider, readProvider);
+            primaryQueryFactory = new SQLQueryFactory(configuration, provider);
+        } else {
+            sqlQueryFactory = new SQLQueryFactory(configuration, provider);
+            primaryQueryFactory = sqlQueryFactory;
+        }
+        configuration.addListener(provider);
         configuration.addListener(new SQLListener() {
             @Override
             public void notifyQuery(QueryMetadata queryMetadata) {
@@ -160,6 +177,10 @@ public class QueryDslConfig {
         return sqlQueryFactory;
     }
 
+    public SQLQueryFactory getPrimaryQueryFactory() {
+        return primaryQueryFactory;
+    }
+
     public DataSource getDataSource() {
         return dataSource;
     }
@@ -167,4 +188,8 @@ public class QueryDslConfig {
     public Configuration getConfiguration() {
         return configuration;
     }
+
+    public ConnectionContext getConnectionContext() {
+        return connectionContext;
+    }
 }
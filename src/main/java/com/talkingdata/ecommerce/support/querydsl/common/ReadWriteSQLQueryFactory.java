@@ -0,0 +1,32 @@
+package com.talkingdata.ecommerce.support.querydsl.common;
+
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+
+import javax.inject.Provider;
+import java.sql.Connection;
+
+/**
+ * 查询和增删改使用不同连接来源的 SQLQueryFactory.
+ * <p>
+ * select/selectFrom/from 等都经过 {@link #query()}, 使用读连接; insert/update/delete/merge 使用写连接.
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+public class ReadWriteSQLQueryFactory extends SQLQueryFactory {
+
+    private final Provider<Connection> readConnection;
+
+    public ReadWriteSQLQueryFactory(Configuration configuration, Provider<Connection> writeConnection,
+                                    Provider<Connection> readConnection) {
+        super(configuration, writeConnection);
+        this.readConnection = readConnection;
+    }
+
+    @Override
+    public SQLQuery<?> query() {
+        return new SQLQuery<Void>(readConnection, configuration);
+    }
+}
@@ -0,0 +1,175 @@
+package com.talkingdata.ecommerce.support.querydsl.common;
+
+import com.google.common.collect.ImmutableList;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * 读写分离数据源: 一个主库连接池和若干从库连接池.
+ * <p>
+ * {@link #getConnection()} 总是返回主库连接, 写操作和普通事务都走主库;
+ * {@link #getReadConnection()} 按负载均衡策略选择从库, 供只读事务和事务外的查询使用.
+ * 没有配置从库时读连接也来自主库.
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+public class RoutingDataSource implements DataSource, Closeable {
+
+    /**
+     * 从库负载均衡策略
+     */
+    public enum Balance {
+        /**
+         * 轮询
+         */
+        ROUND_ROBIN,
+        /**
+         * 选择活跃连接最少的从库, 非 Hikari 连接池时退化为轮询
+         */
+        LEAST_ACTIVE;
+
+        public static Balance of(String name) {
+            if (name == null || name.trim().isEmpty()) {
+                return ROUND_ROBIN;
+            }
+            return valueOf(name.trim().toUpperCase().replace('-', '_'));
+        }
+    }
+
+    private final DataSource primary;
+
+    private final List<DataSource> replicas;
+
+    private final Balance balance;
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    public RoutingDataSource(DataSource primary, List<DataSource> replicas, Balance balance) {
+        this.primary = primary;
+        this.replicas = ImmutableList.copyOf(replicas);
+        this.balance = balance;
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public List<DataSource> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * @return 从库连接, 没有从库时返回主库连接
+     */
+    public Connection getReadConnection() throws SQLException {
+        return selectReplica().getConnection();
+    }
+
+    private DataSource selectReplica() {
+        int size = replicas.size();
+        if (size == 0) {
+            return primary;
+        }
+        if (size == 1) {
+            return replicas.get(0);
+        }
+        int start = counter.getAndIncrement() & Integer.MAX_VALUE;
+        if (balance == Balance.LEAST_ACTIVE) {
+            DataSource selected = null;
+            int minActive = Integer.MAX_VALUE;
+            // 从轮询位置开始比较, 活跃数相同时仍然轮流分配
+            for (int i = 0; i < size; i++) {
+                DataSource candidate = replicas.get((start + i) % size);
+                int active = activeConnections(candidate);
+                if (active < minActive) {
+                    minActive = active;
+                    selected = candidate;
+                }
+            }
+            return selected;
+        }
+        return replicas.get(start % size);
+    }
+
+    private int activeConnections(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource) {
+            HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+            if (pool != null) {
+                return pool.getActiveConnections();
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        primary.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        primary.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return primary.getParentLogger();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return (T) this;
+        }
+        return primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    @Override
+    public void close() {
+        for (DataSource replica : replicas) {
+            if (replica instanceof HikariDataSource) {
+                ((HikariDataSource) replica).close();
+            }
+        }
+        if (primary instanceof HikariDataSource) {
+            ((HikariDataSource) primary).close();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.talkingdata.ecommerce.support.transaction;
+
+import java.sql.Connection;
+
+/**
+ * 事务隔离级别
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+public enum Isolation {
+
+    /**
+     * 使用连接(数据库)默认的隔离级别
+     */
+    DEFAULT(-1),
+
+    READ_UNCOMMITTED(Connection.TRANSACTION_READ_UNCOMMITTED),
+
+    READ_COMMITTED(Connection.TRANSACTION_READ_COMMITTED),
+
+    REPEATABLE_READ(Connection.TRANSACTION_REPEATABLE_READ),
+
+    SERIALIZABLE(Connection.TRANSACTION_SERIALIZABLE);
+
+    private final int level;
+
+    Isolation(int level) {
+        this.level = level;
+    }
+
+    /**
+     * @return {@link Connection} 中对应的常量, DEFAULT 为 -1
+     */
+    public int getLevel() {
+        return level;
+    }
+}
@@ -0,0 +1,30 @@
+package com.talkingdata.ecommerce.support.transaction;
+
+/**
+ * 事务传播行为
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+public enum Propagation {
+
+    /**
+     * 当前有事务则加入, 否则新建事务
+     */
+    REQUIRED,
+
+    /**
+     * 总是新建事务, 当前事务挂起
+     */
+    REQUIRES_NEW,
+
+    /**
+     * 当前有事务则加入, 否则以非事务方式执行
+     */
+    SUPPORTS,
+
+    /**
+     * 以非事务方式执行, 当前事务挂起
+     */
+    NOT_SUPPORTED
+}
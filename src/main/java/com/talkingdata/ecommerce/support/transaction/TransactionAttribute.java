@@ -0,0 +1,67 @@
+package com.talkingdata.ecommerce.support.transaction;
+
+/**
+ * 从 {@link Transactional} 解析出的事务属性, 解析后不再访问注解代理
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+public final class TransactionAttribute {
+
+    /**
+     * 方法不需要事务
+     */
+    public static final TransactionAttribute NONE = new TransactionAttribute(null, false, Isolation.DEFAULT, -1);
+
+    private final Propagation propagation;
+
+    private final boolean readOnly;
+
+    private final Isolation isolation;
+
+    private final int timeout;
+
+    private TransactionAttribute(Propagation propagation, boolean readOnly, Isolation isolation, int timeout) {
+        this.propagation = propagation;
+        this.readOnly = readOnly;
+        this.isolation = isolation;
+        this.timeout = timeout;
+    }
+
+    public static TransactionAttribute of(Transactional annotation) {
+        if (annotation == null) {
+            return NONE;
+        }
+        return new TransactionAttribute(annotation.propagation(), annotation.readOnly(), annotation.isolation(),
+                annotation.timeout());
+    }
+
+    public boolean isTransactional() {
+        return this != NONE;
+    }
+
+    public Propagation getPropagation() {
+        return propagation;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public Isolation getIsolation() {
+        return isolation;
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+
+    @Override
+    public String toString() {
+        if (this == NONE) {
+            return "TransactionAttribute{NONE}";
+        }
+        return "TransactionAttribute{propagation=" + propagation + ", readOnly=" + readOnly
+                + ", isolation=" + isolation + ", timeout=" + timeout + "}";
+    }
+}
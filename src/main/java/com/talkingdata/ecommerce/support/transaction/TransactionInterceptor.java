@@ -1,6 +1,7 @@
 package com.talkingdata.ecommerce.support.transaction;
 
 import com.talkingdata.ecommerce.support.querydsl.common.ConnectionContext;
+import com.talkingdata.ecommerce.utils.ConcurrentReferenceHashMap;
 import lombok.extern.slf4j.Slf4j;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
@@ -8,6 +9,9 @@ import org.aopalliance.intercept.MethodInvocation;
 import javax.inject.Inject;
 import java.lang.reflect.Method;
 import java.sql.Connection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * @author wwy
@@ -18,19 +22,121 @@ public class TransactionInterceptor implements MethodInterceptor {
     @Inject
     private ConnectionContext context;
 
+    /**
+     * 方法 -> 解析后的事务属性, 不需要事务的方法缓存为 {@link TransactionAttribute#NONE}
+     */
+    private final Map<Method, TransactionAttribute> attributeCache = new ConcurrentReferenceHashMap<>(256);
+
+    private final LongAdder cacheHits = new LongAdder();
+
+    private final LongAdder cacheMisses = new LongAdder();
+
     @Override
     public Object invoke(MethodInvocation invocation) throws Throwable {
-        Method method = invocation.getMethod();
-        Transactional annotation = method.getAnnotation(Transactional.class);
-        if (annotation == null) {
-            annotation = method.getDeclaringClass().getAnnotation(Transactional.class);
-        }
-        if (annotation == null || context.getConnection() != null) {
+        TransactionAttribute attribute = getTransactionAttribute(invocation.getMethod());
+        if (!attribute.isTransactional()) {
             return invocation.proceed();
         }
-        Connection connection = context.getConnection(true);
-        connection.setAutoCommit(false);
+        Connection current = context.getConnection();
+        switch (attribute.getPropagation()) {
+            case SUPPORTS:
+                return invocation.proceed();
+            case NOT_SUPPORTED:
+                if (current == null) {
+                    return invocation.proceed();
+                }
+                return suspendAndInvoke(invocation, null);
+            case REQUIRES_NEW:
+                if (current == null) {
+                    return invokeInTransaction(invocation, attribute);
+                }
+                return suspendAndInvoke(invocation, attribute);
+            case REQUIRED:
+            default:
+                if (current != null) {
+                    return invocation.proceed();
+                }
+                return invokeInTransaction(invocation, attribute);
+        }
+    }
+
+    public TransactionAttribute getTransactionAttribute(Method method) {
+        TransactionAttribute attribute = attributeCache.get(method);
+        if (attribute != null) {
+            cacheHits.increment();
+            return attribute;
+        }
+        cacheMisses.increment();
+        attribute = TransactionAttribute.of(findTransactional(method));
+        attributeCache.put(method, attribute);
+        return attribute;
+    }
+
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    public int getCacheSize() {
+        return attributeCache.size();
+    }
+
+    /**
+     * 依次查找方法、父类中被覆盖的同签名方法、声明类上的注解
+     */
+    static Transactional findTransactional(Method method) {
+        Class<?> type = method.getDeclaringClass();
+        while (type != null && type != Object.class) {
+            try {
+                Method candidate = type == method.getDeclaringClass() ? method
+                        : type.getDeclaredMethod(method.getName(), method.getParameterTypes());
+                Transactional annotation = candidate.getAnnotation(Transactional.class);
+                if (annotation != null) {
+                    return annotation;
+                }
+            } catch (NoSuchMethodException e) {
+                // 父类中没有该方法, 继续向上查找
+            }
+            type = type.getSuperclass();
+        }
+        return method.getDeclaringClass().getAnnotation(Transactional.class);
+    }
+
+    /**
+     * 挂起当前事务, 以新事务(attribute不为null)或非事务方式执行, 结束后恢复
+     */
+    private Object suspendAndInvoke(MethodInvocation invocation, TransactionAttribute attribute) throws Throwable {
+        Connection suspended = context.getConnection();
+        Long suspendedDeadline = context.getDeadline();
+        List<Runnable> suspendedCallbacks = context.getAfterCompletions();
+        context.removeConnection();
         try {
+            if (attribute == null) {
+                return invocation.proceed();
+            }
+            return invokeInTransaction(invocation, attribute);
+        } finally {
+            context.bind(suspended, suspendedDeadline, suspendedCallbacks);
+        }
+    }
+
+    private Object invokeInTransaction(MethodInvocation invocation, TransactionAttribute attribute) throws Throwable {
+        Connection connection = context.getConnection(true, attribute.isReadOnly());
+        try {
+            // 只读、隔离级别和自动提交在连接归还时由连接池复位
+            if (attribute.isReadOnly()) {
+                connection.setReadOnly(true);
+            }
+            if (attribute.getIsolation() != Isolation.DEFAULT) {
+                connection.setTransactionIsolation(attribute.getIsolation().getLevel());
+            }
+            if (attribute.getTimeout() > 0) {
+                context.setDeadline(System.currentTimeMillis() + attribute.getTimeout() * 1000L);
+            }
+            connection.setAutoCommit(false);
             Object rv = invocation.proceed();
             connection.commit();
             return rv;
@@ -38,8 +144,23 @@ public class TransactionInterceptor implements MethodInterceptor {
             connection.rollback();
             throw e;
         } finally {
-            connection.close();
-            context.removeConnection();
+            List<Runnable> callbacks = context.getAfterCompletions();
+            try {
+                connection.close();
+            } finally {
+                context.removeConnection();
+                runAfterCompletions(callbacks);
+            }
+        }
+    }
+
+    private void runAfterCompletions(List<Runnable> callbacks) {
+        for (Runnable callback : callbacks) {
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                log.error("after completion callback fail.", e);
+            }
         }
     }
 }
@@ -17,4 +17,23 @@ import java.lang.annotation.Target;
 @Documented
 public @interface Transactional {
 
+    /**
+     * 传播行为
+     */
+    Propagation propagation() default Propagation.REQUIRED;
+
+    /**
+     * 只读事务, 连接会设置 setReadOnly(true)
+     */
+    boolean readOnly() default false;
+
+    /**
+     * 隔离级别
+     */
+    Isolation isolation() default Isolation.DEFAULT;
+
+    /**
+     * 事务超时时间(秒), 小于等于0表示不限制
+     */
+    int timeout() default -1;
 }
@@ -4,6 +4,7 @@ import com.google.common.collect.Lists;
 import com.google.inject.Injector;
 import com.talkingdata.ecommerce.StartWorkerServer;
 import com.talkingdata.ecommerce.support.guice.InjectorSingleton;
+import com.talkingdata.ecommerce.support.json.GsonProvider;
 
 import javax.ws.rs.core.Application;
 import java.io.File;
@@ -28,6 +29,10 @@ public class ApplicationClass extends Application {
 //        resources.add(injector.getInstance(OrderItemResource.class));
         List<Class<?>> classes = obtainResourceClass("com.talkingdata.ecommerce.resource");
         classes.forEach(c -> resources.add(injector.getInstance(c)));
+        // JSON 读写, 共享同一个 Gson
+        resources.add(injector.getInstance(GsonProvider.class));
+        // 请求指标按资源方法的路由统计
+        resources.add(new MetricsRouteFilter());
         return resources;
     }
 
@@ -0,0 +1,388 @@
+package com.talkingdata.ecommerce.support.undertow;
+
+import com.google.common.cache.Cache;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import io.undertow.server.ConduitWrapper;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.encoding.ContentEncodingProvider;
+import io.undertow.util.ConduitFactory;
+import io.undertow.util.Headers;
+import io.undertow.util.Methods;
+import io.undertow.util.StatusCodes;
+import org.xnio.IoUtils;
+import org.xnio.XnioIoThread;
+import org.xnio.XnioWorker;
+import org.xnio.channels.StreamSourceChannel;
+import org.xnio.conduits.ConduitWritableByteChannel;
+import org.xnio.conduits.Conduits;
+import org.xnio.conduits.StreamSinkConduit;
+import org.xnio.conduits.WriteReadyHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 带压缩结果缓存的编码.
+ * <p>
+ * 可缓存的响应(GET、200、长度已知且不超过单条上限、没有 Cache-Control: no-store)先完整缓冲,
+ * 结束时按 请求URI + 编码 查找缓存, 原文长度和 SHA-256 摘要都相同时直接返回缓存的压缩结果, 否则压缩后放入缓存,
+ * 响应以压缩后的 Content-Length 发送. 其他响应交给 Undertow 自带的流式压缩.
+ * <p>
+ * 缓存键不区分用户、Cookie 和 Authorization, 键只用来定位缓存位置: 是否复用由原文摘要决定,
+ * 只有原文相同时才返回缓存的压缩结果, 不同用户在同一URI上的不同内容只会互相替换缓存, 不会串到对方.
+ * 摘要相同而原文不同的概率可以忽略, 但不是严格为零.
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+final class CachingEncodingProvider implements ContentEncodingProvider {
+
+    private final String encoding;
+
+    private final ContentEncodingProvider streaming;
+
+    private final int level;
+
+    private final Cache<String, CompressedBody> cache;
+
+    private final int maxEntryBytes;
+
+    /**
+     * 缓冲阶段通知写就绪的线程, 即请求的IO线程
+     */
+    private final Function<HttpServerExchange, Executor> ioExecutor;
+
+    /**
+     * @param encoding      gzip 或 deflate
+     * @param streaming     不缓存时使用的流式压缩
+     * @param level         压缩级别
+     * @param cache         请求URI + 编码 -> 压缩结果, 各编码共用
+     * @param maxEntryBytes 可缓存响应的最大原文字节数
+     */
+    CachingEncodingProvider(String encoding, ContentEncodingProvider streaming, int level,
+                            Cache<String, CompressedBody> cache, int maxEntryBytes) {
+        this(encoding, streaming, level, cache, maxEntryBytes, HttpServerExchange::getIoThread);
+    }
+
+    /**
+     * @param ioExecutor 缓冲阶段通知写就绪使用的线程
+     */
+    CachingEncodingProvider(String encoding, ContentEncodingProvider streaming, int level,
+                            Cache<String, CompressedBody> cache, int maxEntryBytes,
+                            Function<HttpServerExchange, Executor> ioExecutor) {
+        this.encoding = encoding;
+        this.streaming = streaming;
+        this.level = level;
+        this.cache = cache;
+        this.maxEntryBytes = maxEntryBytes;
+        this.ioExecutor = ioExecutor;
+    }
+
+    @Override
+    public ConduitWrapper<StreamSinkConduit> getResponseWrapper() {
+        return (factory, exchange) -> {
+            long length = exchange.getResponseContentLength();
+            if (length <= 0 || length > maxEntryBytes || !isCacheable(exchange)) {
+                return streaming.getResponseWrapper().wrap(factory, exchange);
+            }
+            String key = exchange.getQueryString().isEmpty() ? exchange.getRequestURI()
+                    : exchange.getRequestURI() + "?" + exchange.getQueryString();
+            return new BufferingConduit(factory, exchange, encoding + " " + key, (int) length);
+        };
+    }
+
+    private static boolean isCacheable(HttpServerExchange exchange) {
+        if (!Methods.GET.equals(exchange.getRequestMethod()) || exchange.getStatusCode() != StatusCodes.OK) {
+            return false;
+        }
+        String cacheControl = exchange.getResponseHeaders().getFirst(Headers.CACHE_CONTROL);
+        return cacheControl == null || !cacheControl.toLowerCase().contains("no-store");
+    }
+
+    /**
+     * 取缓存的压缩结果, 原文不同时重新压缩并放入缓存
+     */
+    private byte[] compress(String key, byte[] raw, int length) throws IOException {
+        HashCode digest = Hashing.sha256().hashBytes(raw, 0, length);
+        CompressedBody cached = cache.getIfPresent(key);
+        if (cached != null && cached.length == length && cached.digest.equals(digest)) {
+            return cached.body;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, length / 4));
+        Deflater deflater = new Deflater(level, "gzip".equals(encoding));
+        try (OutputStream stream = "gzip".equals(encoding) ? new LeveledGzipOutputStream(out, deflater)
+                : new DeflaterOutputStream(out, deflater)) {
+            stream.write(raw, 0, length);
+        } finally {
+            deflater.end();
+        }
+        byte[] body = out.toByteArray();
+        cache.put(key, new CompressedBody(length, digest, body));
+        return body;
+    }
+
+    /**
+     * 压缩结果, 按原文长度和 SHA-256 摘要校验是否仍然有效
+     */
+    static final class CompressedBody {
+
+        private final int length;
+
+        private final HashCode digest;
+
+        private final byte[] body;
+
+        CompressedBody(int length, HashCode digest, byte[] body) {
+            this.length = length;
+            this.digest = digest;
+            this.body = body;
+        }
+
+        int weight() {
+            return body.length;
+        }
+    }
+
+    /**
+     * 使用指定 Deflater(压缩级别)的 gzip 输出流
+     */
+    private static final class LeveledGzipOutputStream extends GZIPOutputStream {
+
+        LeveledGzipOutputStream(OutputStream out, Deflater deflater) throws IOException {
+            super(out);
+            // 替换父类创建的默认级别 Deflater, 此时还没有写入数据
+            def.end();
+            def = deflater;
+        }
+    }
+
+    /**
+     * 缓冲完整响应, 结束写入时一次写出压缩结果.
+     * 下层 conduit 在结束时才创建, 使其按压缩后的 Content-Length 发送
+     */
+    private final class BufferingConduit implements StreamSinkConduit {
+
+        private final ConduitFactory<StreamSinkConduit> factory;
+
+        private final HttpServerExchange exchange;
+
+        private final String key;
+
+        private byte[] raw;
+
+        private int length;
+
+        private StreamSinkConduit next;
+
+        private WriteReadyHandler writeReadyHandler;
+
+        private ByteBuffer pending;
+
+        private boolean resumed;
+
+        private boolean shutdown;
+
+        private boolean nextShutdown;
+
+        BufferingConduit(ConduitFactory<StreamSinkConduit> factory, HttpServerExchange exchange, String key,
+                         int contentLength) {
+            this.factory = factory;
+            this.exchange = exchange;
+            this.key = key;
+            this.raw = new byte[contentLength];
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (shutdown) {
+                throw new ClosedChannelException();
+            }
+            int remaining = src.remaining();
+            if (length + remaining > raw.length) {
+                raw = Arrays.copyOf(raw, Math.max(raw.length * 2, length + remaining));
+            }
+            src.get(raw, length, remaining);
+            length += remaining;
+            return remaining;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offs, int len) throws IOException {
+            long total = 0;
+            for (int i = offs; i < offs + len; i++) {
+                total += write(srcs[i]);
+            }
+            return total;
+        }
+
+        @Override
+        public int writeFinal(ByteBuffer src) throws IOException {
+            return Conduits.writeFinalBasic(this, src);
+        }
+
+        @Override
+        public long writeFinal(ByteBuffer[] srcs, int offs, int len) throws IOException {
+            return Conduits.writeFinalBasic(this, srcs, offs, len);
+        }
+
+        @Override
+        public long transferFrom(FileChannel src, long position, long count) throws IOException {
+            return src.transferTo(position, count, new ConduitWritableByteChannel(this));
+        }
+
+        @Override
+        public long transferFrom(StreamSourceChannel source, long count, ByteBuffer throughBuffer) throws IOException {
+            return IoUtils.transfer(source, count, throughBuffer, new ConduitWritableByteChannel(this));
+        }
+
+        @Override
+        public void terminateWrites() throws IOException {
+            if (shutdown) {
+                return;
+            }
+            shutdown = true;
+            byte[] body = compress(key, raw, length);
+            raw = null;
+            exchange.getResponseHeaders().put(Headers.CONTENT_LENGTH, body.length);
+            pending = ByteBuffer.wrap(body);
+            createNext();
+        }
+
+        @Override
+        public boolean flush() throws IOException {
+            if (next == null) {
+                // 结束前数据都在缓冲中
+                return true;
+            }
+            while (pending.hasRemaining()) {
+                if (next.write(pending) == 0) {
+                    return false;
+                }
+            }
+            if (!nextShutdown) {
+                next.terminateWrites();
+                nextShutdown = true;
+            }
+            return next.flush();
+        }
+
+        @Override
+        public void truncateWrites() throws IOException {
+            raw = null;
+            shutdown = true;
+            if (next == null) {
+                createNext();
+            }
+            next.truncateWrites();
+        }
+
+        private void createNext() {
+            next = factory.create();
+            if (writeReadyHandler != null) {
+                next.setWriteReadyHandler(writeReadyHandler);
+            }
+            if (resumed) {
+                next.resumeWrites();
+            }
+        }
+
+        @Override
+        public boolean isWriteShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public void resumeWrites() {
+            if (next != null) {
+                next.resumeWrites();
+                return;
+            }
+            resumed = true;
+            queueWriteReady();
+        }
+
+        /**
+         * 缓冲阶段总是可写, 与 DeflatingStreamSinkConduit 相同, 在IO线程中通知写就绪
+         */
+        private void queueWriteReady() {
+            ioExecutor.apply(exchange).execute(() -> {
+                try {
+                    if (writeReadyHandler != null) {
+                        writeReadyHandler.writeReady();
+                    }
+                } finally {
+                    if (next == null && resumed) {
+                        queueWriteReady();
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void suspendWrites() {
+            if (next == null) {
+                resumed = false;
+            } else {
+                next.suspendWrites();
+            }
+        }
+
+        @Override
+        public void wakeupWrites() {
+            if (next == null) {
+                resumeWrites();
+            } else {
+                next.wakeupWrites();
+            }
+        }
+
+        @Override
+        public boolean isWriteResumed() {
+            return next == null ? resumed : next.isWriteResumed();
+        }
+
+        @Override
+        public void awaitWritable() throws IOException {
+            if (next != null) {
+                next.awaitWritable();
+            }
+        }
+
+        @Override
+        public void awaitWritable(long time, TimeUnit timeUnit) throws IOException {
+            if (next != null) {
+                next.awaitWritable(time, timeUnit);
+            }
+        }
+
+        @Override
+        public XnioIoThread getWriteThread() {
+            return exchange.getIoThread();
+        }
+
+        @Override
+        public void setWriteReadyHandler(WriteReadyHandler handler) {
+            this.writeReadyHandler = handler;
+            if (next != null) {
+                next.setWriteReadyHandler(handler);
+            }
+        }
+
+        @Override
+        public XnioWorker getWorker() {
+            return exchange.getIoThread().getWorker();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.talkingdata.ecommerce.support.undertow;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.talkingdata.ecommerce.utils.Configs;
+import io.undertow.predicate.Predicate;
+import io.undertow.server.HandlerWrapper;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.encoding.ContentEncodingProvider;
+import io.undertow.server.handlers.encoding.ContentEncodingRepository;
+import io.undertow.server.handlers.encoding.DeflateEncodingProvider;
+import io.undertow.server.handlers.encoding.EncodingHandler;
+import io.undertow.server.handlers.encoding.GzipEncodingProvider;
+import io.undertow.util.Headers;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 响应压缩(gzip/deflate), 在 Undertow 处理链中 servlet 之前.
+ * <p>
+ * 配置项(undertow.compression.*):
+ * <ul>
+ * <li>enabled 是否启用, 默认true</li>
+ * <li>minSize 长度已知的响应小于该字节数时不压缩, 默认1024; 长度未知(流式)的响应总是压缩</li>
+ * <li>level 压缩级别 1-9, 默认6</li>
+ * <li>mimeTypes 压缩的 Content-Type, 按前缀匹配, 可用 text/* 形式</li>
+ * <li>cacheMaxBytes 压缩结果缓存的总字节数, 0为不缓存, 默认16M</li>
+ * <li>cacheMaxEntryBytes 可缓存响应的最大原文字节数, 默认256K</li>
+ * </ul>
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+@Slf4j
+final class CompressionHandlerWrapper implements HandlerWrapper {
+
+    private static final List<String> DEFAULT_MIME_TYPES = ImmutableList.of("application/json", "text/*",
+            "application/javascript", "application/xml");
+
+    private final ContentEncodingRepository repository;
+
+    private CompressionHandlerWrapper(ContentEncodingRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * @return 按配置创建的压缩处理, 未启用时返回null
+     */
+    static CompressionHandlerWrapper fromConfig() {
+        if (!Configs.getBoolean("undertow.compression.enabled", true)) {
+            return null;
+        }
+        int minSize = Configs.getInt("undertow.compression.minSize", 1024);
+        int level = Configs.getInt("undertow.compression.level", 6);
+        List<String> mimeTypes = getMimeTypes();
+        int cacheMaxBytes = Configs.getInt("undertow.compression.cacheMaxBytes", 16 * 1024 * 1024);
+        int cacheMaxEntryBytes = Configs.getInt("undertow.compression.cacheMaxEntryBytes", 256 * 1024);
+
+        Predicate predicate = exchange -> isCompressible(exchange, minSize, mimeTypes);
+        ContentEncodingProvider gzip = new GzipEncodingProvider(level);
+        ContentEncodingProvider deflate = new DeflateEncodingProvider(level);
+        if (cacheMaxBytes > 0) {
+            Cache<String, CachingEncodingProvider.CompressedBody> cache = CacheBuilder.newBuilder()
+                    .maximumWeight(cacheMaxBytes)
+                    .<String, CachingEncodingProvider.CompressedBody>weigher((key, body) -> key.length() + body.weight())
+                    .build();
+            gzip = new CachingEncodingProvider("gzip", gzip, level, cache, cacheMaxEntryBytes);
+            deflate = new CachingEncodingProvider("deflate", deflate, level, cache, cacheMaxEntryBytes);
+        }
+        ContentEncodingRepository repository = new ContentEncodingRepository()
+                .addEncodingHandler("gzip", gzip, 100, predicate)
+                .addEncodingHandler("deflate", deflate, 50, predicate);
+        log.info("response compression minSize={}, level={}, mimeTypes={}, cacheMaxBytes={}, cacheMaxEntryBytes={}",
+                minSize, level, mimeTypes, cacheMaxBytes, cacheMaxEntryBytes);
+        return new CompressionHandlerWrapper(repository);
+    }
+
+    private static List<String> getMimeTypes() {
+        Object value = Configs.getObject("undertow.compression.mimeTypes");
+        if (value instanceof Collection) {
+            ImmutableList.Builder<String> builder = ImmutableList.builder();
+            for (Object mimeType : (Collection<?>) value) {
+                builder.add(String.valueOf(mimeType).trim());
+            }
+            return builder.build();
+        }
+        if (value instanceof String && !((String) value).trim().isEmpty()) {
+            return ImmutableList.copyOf(((String) value).trim().split("\\s*,\\s*"));
+        }
+        return DEFAULT_MIME_TYPES;
+    }
+
+    /**
+     * 在响应开始发送时判断, 此时响应头已确定
+     */
+    private static boolean isCompressible(HttpServerExchange exchange, int minSize, List<String> mimeTypes) {
+        long length = exchange.getResponseContentLength();
+        if (length >= 0 && length < minSize) {
+            return false;
+        }
+        String contentType = exchange.getResponseHeaders().getFirst(Headers.CONTENT_TYPE);
+        if (contentType == null) {
+            return false;
+        }
+        for (String mimeType : mimeTypes) {
+            String prefix = mimeType.endsWith("*") ? mimeType.substring(0, mimeType.length() - 1) : mimeType;
+            if (contentType.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public HttpHandler wrap(HttpHandler handler) {
+        EncodingHandler encodingHandler = new EncodingHandler(handler, repository);
+        return exchange -> {
+            // 同一URL的响应按 Accept-Encoding 不同而不同, 告知中间缓存
+            exchange.getResponseHeaders().add(Headers.VARY, Headers.ACCEPT_ENCODING_STRING);
+            encodingHandler.handleRequest(exchange);
+        };
+    }
+}
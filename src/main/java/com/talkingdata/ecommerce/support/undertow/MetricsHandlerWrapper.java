@@ -0,0 +1,121 @@
+package com.talkingdata.ecommerce.support.undertow;
+
+import com.talkingdata.ecommerce.support.metrics.HttpMetrics;
+import com.talkingdata.ecommerce.utils.Configs;
+import io.undertow.server.HandlerWrapper;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.AttachmentKey;
+import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
+import io.undertow.util.Methods;
+
+/**
+ * 请求计时和 /metrics 端点, 在 Undertow 处理链最外层.
+ * <p>
+ * 计时从请求进入处理链开始(包括限流排队), 到响应完整发送结束(包括流式输出);
+ * 路由由 {@link MetricsRouteFilter} 在匹配到资源方法后设置, 未匹配的请求计入 {@link HttpMetrics#UNMATCHED}.
+ * metrics.path(默认 /metrics)在IO线程中直接输出, 不经过 JAX-RS.
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+final class MetricsHandlerWrapper implements HandlerWrapper {
+
+    static final AttachmentKey<RequestTiming> TIMING = AttachmentKey.create(RequestTiming.class);
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final HttpString[] STANDARD_METHODS = {Methods.GET, Methods.POST, Methods.PUT, Methods.DELETE,
+            Methods.PATCH, Methods.HEAD, Methods.OPTIONS};
+
+    private final HttpMetrics metrics = HttpMetrics.getInstance();
+
+    private final String path;
+
+    private MetricsHandlerWrapper(String path) {
+        this.path = path;
+    }
+
+    /**
+     * @return 按配置创建, 未启用时返回null
+     */
+    static MetricsHandlerWrapper fromConfig() {
+        if (!Configs.getBoolean("metrics.enabled", true)) {
+            return null;
+        }
+        return new MetricsHandlerWrapper(Configs.getString("metrics.path", "/metrics"));
+    }
+
+    String getPath() {
+        return path;
+    }
+
+    @Override
+    public HttpHandler wrap(HttpHandler handler) {
+        HttpMetrics.Route metricsRoute = metrics.route(Methods.GET_STRING, path);
+        return exchange -> {
+            if (path.equals(exchange.getRequestPath()) && Methods.GET.equals(exchange.getRequestMethod())) {
+                long start = System.nanoTime();
+                exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, CONTENT_TYPE);
+                exchange.getResponseSender().send(metrics.scrape());
+                metricsRoute.record(exchange.getStatusCode(), System.nanoTime() - start);
+                return;
+            }
+            RequestTiming timing = new RequestTiming(System.nanoTime());
+            exchange.putAttachment(TIMING, timing);
+            metrics.requestStarted();
+            exchange.addExchangeCompleteListener((completed, next) -> {
+                try {
+                    metrics.requestFinished();
+                    HttpMetrics.Route route = timing.route;
+                    if (route == null) {
+                        route = metrics.route(methodLabel(completed.getRequestMethod()), HttpMetrics.UNMATCHED);
+                    } else {
+                        route.finished();
+                    }
+                    route.record(completed.getStatusCode(), System.nanoTime() - timing.start);
+                } finally {
+                    next.proceed();
+                }
+            });
+            handler.handleRequest(exchange);
+        };
+    }
+
+    /**
+     * 标准请求方法原样输出, 其他方法统一为 *, 限制标签取值
+     */
+    private static String methodLabel(HttpString method) {
+        for (HttpString standard : STANDARD_METHODS) {
+            if (standard.equals(method)) {
+                return standard.toString();
+            }
+        }
+        return "*";
+    }
+
+    /**
+     * 单个请求的开始时间和匹配到的路由
+     */
+    static final class RequestTiming {
+
+        private final long start;
+
+        private volatile HttpMetrics.Route route;
+
+        RequestTiming(long start) {
+            this.start = start;
+        }
+
+        /**
+         * 设置匹配到的路由并计入该路由的处理中请求数, 只在首次调用时生效
+         */
+        void matched(HttpMetrics.Route route) {
+            if (this.route == null) {
+                route.started();
+                this.route = route;
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.talkingdata.ecommerce.support.undertow;
+
+import com.talkingdata.ecommerce.support.metrics.HttpMetrics;
+import com.talkingdata.ecommerce.utils.ConcurrentReferenceHashMap;
+import io.undertow.servlet.handlers.ServletRequestContext;
+
+import javax.inject.Singleton;
+import javax.ws.rs.Path;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.ext.Provider;
+import java.lang.reflect.Method;
+import java.util.Map;
+
+/**
+ * 资源方法匹配后, 把路由(请求方法 + 类和方法上 @Path 拼成的模板)交给 {@link MetricsHandlerWrapper} 的请求计时
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+@Provider
+@Singleton
+public class MetricsRouteFilter implements ContainerRequestFilter {
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    /**
+     * 资源方法 -> 路径模板
+     */
+    private final Map<Method, String> templates = new ConcurrentReferenceHashMap<>(64);
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        ServletRequestContext servletContext = ServletRequestContext.current();
+        Method method = resourceInfo.getResourceMethod();
+        if (servletContext == null || method == null) {
+            return;
+        }
+        MetricsHandlerWrapper.RequestTiming timing = servletContext.getExchange().getAttachment(MetricsHandlerWrapper.TIMING);
+        if (timing != null) {
+            timing.matched(HttpMetrics.getInstance().route(requestContext.getMethod(), template(method)));
+        }
+    }
+
+    private String template(Method method) {
+        String template = templates.get(method);
+        if (template == null) {
+            template = buildTemplate(findPath(resourceInfo.getResourceClass()), method.getAnnotation(Path.class));
+            templates.put(method, template);
+        }
+        return template;
+    }
+
+    /**
+     * 资源实例可能是 Guice 生成的子类, 向上查找声明了 @Path 的类
+     */
+    private static Path findPath(Class<?> type) {
+        while (type != null && type != Object.class) {
+            Path path = type.getAnnotation(Path.class);
+            if (path != null) {
+                return path;
+            }
+            type = type.getSuperclass();
+        }
+        return null;
+    }
+
+    private static String buildTemplate(Path classPath, Path methodPath) {
+        StringBuilder template = new StringBuilder();
+        for (Path path : new Path[]{classPath, methodPath}) {
+            if (path == null) {
+                continue;
+            }
+            for (String segment : path.value().split("/")) {
+                if (!segment.isEmpty()) {
+                    template.append('/').append(segment);
+                }
+            }
+        }
+        return template.length() == 0 ? "/" : template.toString();
+    }
+}
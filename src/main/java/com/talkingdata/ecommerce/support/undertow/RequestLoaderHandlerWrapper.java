@@ -0,0 +1,30 @@
+package com.talkingdata.ecommerce.support.undertow;
+
+import com.talkingdata.ecommerce.support.querydsl.base.RequestLoader;
+import io.undertow.server.HandlerWrapper;
+import io.undertow.server.HttpHandler;
+
+/**
+ * 为每个请求开启 {@link RequestLoader}, 资源方法内重复的主键查询只访问一次数据库, 经 prime 登记的主键合并查询.
+ * <p>
+ * 作为 servlet 外层处理链在分派后的执行线程上包住整个请求处理, 在 finally 中关闭:
+ * 未映射的异常跳过响应过滤器、返回 CompletionStage 的资源在其他线程结束时, 都不会把 loader 留在执行线程上.
+ * 异步资源的后续处理不在该线程上, 不使用请求范围的 loader.
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+final class RequestLoaderHandlerWrapper implements HandlerWrapper {
+
+    @Override
+    public HttpHandler wrap(HttpHandler handler) {
+        return exchange -> {
+            RequestLoader.open();
+            try {
+                handler.handleRequest(exchange);
+            } finally {
+                RequestLoader.close();
+            }
+        };
+    }
+}
@@ -2,18 +2,24 @@ package com.talkingdata.ecommerce.support.undertow;
 
 import com.talkingdata.ecommerce.utils.Configs;
 import io.undertow.Undertow;
+import io.undertow.UndertowOptions;
+import io.undertow.server.handlers.RequestLimitingHandler;
 import io.undertow.servlet.api.DeploymentInfo;
 import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 import org.jboss.resteasy.plugins.server.undertow.UndertowJaxrsServer;
+import org.xnio.Options;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
+import java.util.concurrent.ExecutorService;
 
 /**
  * @author wwy
  * @date 2019-08-23
  */
+@Slf4j
 @Getter
 @Singleton
 public final class UndertowServer {
@@ -27,6 +33,61 @@ public final class UndertowServer {
      */
     private int port;
 
+    /**
+     * 请求执行方式: worker 在 XNIO 工作线程池中执行(默认), virtual 每个请求一个虚拟线程(JDK 21+)
+     */
+    private String executor;
+
+    /**
+     * IO线程数, 默认 max(CPU核数, 2)
+     */
+    private int ioThreads;
+
+    /**
+     * XNIO 工作线程数, 默认 ioThreads * 8
+     */
+    private int workerThreads;
+
+    /**
+     * 每个缓冲区字节数, 默认按最大堆内存选择, 同 Undertow 默认值
+     */
+    private int bufferSize;
+
+    /**
+     * 是否使用堆外缓冲区
+     */
+    private boolean directBuffers;
+
+    /**
+     * 是否启用 HTTP/2, 明文端口上支持 h2c 升级和 prior knowledge
+     */
+    private boolean http2;
+
+    /**
+     * 是否总是返回 Connection: keep-alive
+     */
+    private boolean keepAlive;
+
+    /**
+     * 长连接等待下一个请求的毫秒数, 超时关闭连接, 0为不限制
+     */
+    private int keepAliveTimeout;
+
+    /**
+     * 监听 socket 的 accept 队列长度
+     */
+    private int backlog;
+
+    /**
+     * 同时处理的最大请求数, 超出的请求排队, 0为不限制
+     */
+    private int maxConcurrentRequests;
+
+    /**
+     * 排队请求数上限, 队列满时直接返回503
+     */
+    private int requestQueueSize;
+
     /**
      * 默认构造函数
      *
@@ -34,6 +95,31 @@ public final class UndertowServer {
     public UndertowServer() {
         this.host = Configs.getString("undertow.host");
         this.port = Configs.getInt("undertow.port");
+        this.executor = Configs.getString("undertow.executor", "worker");
+        // 未配置的项与 Undertow.Builder 的默认值相同, 启动日志中打印实际值
+        this.ioThreads = Configs.getInt("undertow.ioThreads", Math.max(Runtime.getRuntime().availableProcessors(), 2));
+        this.workerThreads = Configs.getInt("undertow.workerThreads", ioThreads * 8);
+        long maxMemory = Runtime.getRuntime().maxMemory();
+        int defaultBufferSize;
+        boolean defaultDirectBuffers;
+        if (maxMemory < 64 * 1024 * 1024) {
+            defaultBufferSize = 512;
+            defaultDirectBuffers = false;
+        } else if (maxMemory < 128 * 1024 * 1024) {
+            defaultBufferSize = 1024;
+            defaultDirectBuffers = true;
+        } else {
+            defaultBufferSize = 1024 * 16 - 20;
+            defaultDirectBuffers = true;
+        }
+        this.bufferSize = Configs.getInt("undertow.bufferSize", defaultBufferSize);
+        this.directBuffers = Configs.getBoolean("undertow.directBuffers", defaultDirectBuffers);
+        this.http2 = Configs.getBoolean("undertow.http2", false);
+        this.keepAlive = Configs.getBoolean("undertow.keepAlive", true);
+        this.keepAliveTimeout = Configs.getInt("undertow.keepAliveTimeout", 0);
+        this.backlog = Configs.getInt("undertow.backlog", 1000);
+        this.maxConcurrentRequests = Configs.getInt("undertow.maxConcurrentRequests", 0);
+        this.requestQueueSize = Configs.getInt("undertow.requestQueueSize", 1000);
     }
 
     /**
@@ -43,7 +129,18 @@ public final class UndertowServer {
      * @param appPath 应用路径
      */
     public void start(String appName, String rootPath, String appPath) {
-        Undertow.Builder serverBuilder = Undertow.builder().addHttpListener(port, host);
+        Undertow.Builder serverBuilder = Undertow.builder()
+                .addHttpListener(port, host)
+                .setIoThreads(ioThreads)
+                .setWorkerThreads(workerThreads)
+                .setBufferSize(bufferSize)
+                .setDirectBuffers(directBuffers)
+                .setServerOption(UndertowOptions.ENABLE_HTTP2, http2)
+                .setServerOption(UndertowOptions.ALWAYS_SET_KEEP_ALIVE, keepAlive)
+                .setSocketOption(Options.BACKLOG, backlog);
+        if (keepAliveTimeout > 0) {
+            serverBuilder.setServerOption(UndertowOptions.NO_REQUEST_TIMEOUT, keepAliveTimeout);
+        }
         UndertowJaxrsServer server = new UndertowJaxrsServer();
         server.start(serverBuilder);
 
@@ -51,6 +148,50 @@ public final class UndertowServer {
                 .setClassLoader(UndertowServer.class.getClassLoader())
                 .setContextPath(rootPath)
                 .setDeploymentName(appName);
+        ExecutorService requestExecutor = createRequestExecutor();
+        if (requestExecutor != null) {
+            di.setExecutor(requestExecutor).setAsyncExecutor(requestExecutor);
+        }
+        // 请求范围的主键查询合并, 外层处理链在分派后的执行线程上运行
+        di.addOuterHandlerChainWrapper(new RequestLoaderHandlerWrapper());
+        CompressionHandlerWrapper compression = CompressionHandlerWrapper.fromConfig();
+        if (compression != null) {
+            di.addInitialHandlerChainWrapper(compression);
+        }
+        if (maxConcurrentRequests > 0) {
+            // 在IO线程中限流, 超出的请求不会占用执行线程
+            di.addInitialHandlerChainWrapper(
+                    handler -> new RequestLimitingHandler(maxConcurrentRequests, requestQueueSize, handler));
+        }
+        MetricsHandlerWrapper metrics = MetricsHandlerWrapper.fromConfig();
+        if (metrics != null) {
+            // 最后添加的在最外层, 计时包括限流排队
+            di.addInitialHandlerChainWrapper(metrics);
+            log.info("metrics exposed at {}", metrics.getPath());
+        }
         server.deploy(di);
+        log.info("undertow {}:{} ioThreads={}, workerThreads={}, executor={}, bufferSize={}, directBuffers={}, "
+                        + "http2={}, keepAlive={}, keepAliveTimeout={}ms, backlog={}, maxConcurrentRequests={}, "
+                        + "requestQueueSize={}", host == null ? "*" : host, port, ioThreads, workerThreads,
+                requestExecutor == null ? "worker" : executor, bufferSize, directBuffers, http2, keepAlive,
+                keepAliveTimeout, backlog, maxConcurrentRequests, maxConcurrentRequests > 0 ? requestQueueSize : "-");
+    }
+
+    /**
+     * @return 执行请求的执行器, 为null时使用 XNIO 工作线程池
+     */
+    private ExecutorService createRequestExecutor() {
+        if ("virtual".equalsIgnoreCase(executor)) {
+            ExecutorService virtual = VirtualThreads.newExecutor("undertow-virtual-");
+            if (virtual != null) {
+                log.info("dispatch requests to virtual threads.");
+                return virtual;
+            }
+            log.warn("virtual threads need java 21+, running on java {}, fall back to worker threads.",
+                    System.getProperty("java.version"));
+        } else if (!"worker".equalsIgnoreCase(executor)) {
+            log.warn("unknown undertow.executor {}, use worker threads.", executor);
+        }
+        return null;
     }
 }
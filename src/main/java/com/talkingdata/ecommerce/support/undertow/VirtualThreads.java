@@ -0,0 +1,59 @@
+package com.talkingdata.ecommerce.support.undertow;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程执行器.
+ * <p>
+ * 项目按 1.8 编译, 运行在 JDK 21+ 时通过 MethodHandle 调用
+ * {@code Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 0).factory())},
+ * 每个任务一个带名字的虚拟线程; 更低版本(或 19/20 未开启预览)返回null, 由调用方回退到平台线程池.
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+@Slf4j
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @param namePrefix 线程名前缀, 后接递增序号
+     * @return 每任务一个虚拟线程的执行器, 当前JDK不支持时返回null
+     */
+    static ExecutorService newExecutor(String namePrefix) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Class<?> virtualBuilderClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            MethodHandle ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(virtualBuilderClass));
+            MethodHandle name = lookup.findVirtual(virtualBuilderClass, "name",
+                    MethodType.methodType(virtualBuilderClass, String.class, long.class));
+            MethodHandle factory = lookup.findVirtual(builderClass, "factory", MethodType.methodType(ThreadFactory.class));
+            MethodHandle newExecutor = lookup.findStatic(Executors.class, "newThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class, ThreadFactory.class));
+
+            Object builder = name.invoke(ofVirtual.invoke(), namePrefix, 0L);
+            ThreadFactory threadFactory = (ThreadFactory) factory.invoke(builder);
+            return (ExecutorService) newExecutor.invoke(threadFactory);
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+            log.debug("virtual threads not available on java {}", System.getProperty("java.version"));
+            return null;
+        } catch (UnsupportedOperationException e) {
+            // JDK 19/20 未开启 --enable-preview
+            log.debug("virtual threads are a preview feature on java {}", System.getProperty("java.version"));
+            return null;
+        } catch (Throwable e) {
+            log.warn("create virtual thread executor fail.", e);
+            return null;
+        }
+    }
+}
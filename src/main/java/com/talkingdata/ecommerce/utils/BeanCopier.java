@@ -0,0 +1,253 @@
+package com.talkingdata.ecommerce.utils;
+
+import com.google.common.collect.ImmutableList;
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 源类型 -> 目标类型 的属性复制器.
+ * <p>
+ * 每对类型只解析一次字段和 setter, 把读写编译成 {@link MethodHandle} 并预先选好类型转换,
+ * 之后复制只是依次调用 getter/转换/setter, 不再做反射查找和类型名比较.
+ * 转换规则与 {@link BeanUtils#setFieldValue(Object, Object)} 原有规则一致.
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+public final class BeanCopier {
+
+    private static final Logger log = LoggerFactory.getLogger(BeanCopier.class);
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    /**
+     * 转换结果为该值时不调用 setter
+     */
+    private static final Object SKIP = new Object();
+
+    private static final Map<Class<?>, Map<Class<?>, BeanCopier>> copierCache = new ConcurrentReferenceHashMap<>(64);
+
+    private final Class<?> targetClass;
+
+    private final List<Property> properties;
+
+    private final MethodHandle constructor;
+
+    private BeanCopier(Class<?> sourceClass, Class<?> targetClass) {
+        this.targetClass = targetClass;
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        Map<String, Field> sourceFields = new LinkedHashMap<>();
+        for (Field field : sourceClass.getDeclaredFields()) {
+            sourceFields.putIfAbsent(field.getName(), field);
+        }
+        Class<?> superclass = sourceClass.getSuperclass();
+        if (superclass != null) {
+            for (Field field : superclass.getDeclaredFields()) {
+                sourceFields.putIfAbsent(field.getName(), field);
+            }
+        }
+        ImmutableList.Builder<Property> properties = ImmutableList.builder();
+        for (Field field : targetClass.getDeclaredFields()) {
+            Field sourceField = sourceFields.get(field.getName());
+            if (sourceField == null || Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            Method setter;
+            try {
+                setter = targetClass.getMethod(BeanUtils.parSetName(field.getName()), field.getType());
+            } catch (NoSuchMethodException e) {
+                continue;
+            }
+            Function<Object, Object> converter = converter(sourceField.getType(), field.getType());
+            if (converter == null) {
+                log.error("not supper type {}, {}.{} will not be copied", field.getType().getSimpleName(),
+                        targetClass.getName(), field.getName());
+                continue;
+            }
+            try {
+                sourceField.setAccessible(true);
+                MethodHandle getter = lookup.unreflectGetter(sourceField).asType(GETTER_TYPE);
+                MethodHandle setterHandle = lookup.unreflect(setter).asType(SETTER_TYPE);
+                properties.add(new Property(sourceClass, targetClass, field.getName(), getter, converter, setterHandle));
+            } catch (IllegalAccessException e) {
+                log.error("field access error,{} -> {}", sourceField.getName(), field.getName(), e);
+            }
+        }
+        this.properties = properties.build();
+        MethodHandle constructor = null;
+        try {
+            constructor = lookup.findConstructor(targetClass, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            // 没有公共无参构造器时只能复制到已有实例
+        }
+        this.constructor = constructor;
+    }
+
+    /**
+     * 获取复制器, 不存在时构建并缓存
+     *
+     * @param sourceClass 源类型
+     * @param targetClass 目标类型
+     * @return 复制器
+     */
+    public static BeanCopier get(Class<?> sourceClass, Class<?> targetClass) {
+        Map<Class<?>, BeanCopier> copiers = copierCache.get(sourceClass);
+        if (copiers == null) {
+            copiers = new ConcurrentReferenceHashMap<>(16);
+            Map<Class<?>, BeanCopier> existing = copierCache.putIfAbsent(sourceClass, copiers);
+            if (existing != null) {
+                copiers = existing;
+            }
+        }
+        BeanCopier copier = copiers.get(targetClass);
+        if (copier == null) {
+            copier = new BeanCopier(sourceClass, targetClass);
+            copiers.put(targetClass, copier);
+        }
+        return copier;
+    }
+
+    /**
+     * 把 source 的同名字段复制到 target, 源值为null的字段不复制, 单个字段失败时记录日志并继续
+     */
+    public void copy(Object source, Object target) {
+        for (Property property : properties) {
+            property.copy(source, target);
+        }
+    }
+
+    /**
+     * 创建目标实例并复制
+     *
+     * @return 目标实例
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T copy(Object source) {
+        if (constructor == null) {
+            throw new IllegalStateException("no public no-arg constructor in " + targetClass.getName());
+        }
+        Object target;
+        try {
+            target = (Object) constructor.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("can not instantiate " + targetClass.getName(), e);
+        }
+        copy(source, target);
+        return (T) target;
+    }
+
+    /**
+     * 按源字段类型和目标字段类型选择转换, 不支持的目标类型返回null
+     */
+    private static Function<Object, Object> converter(Class<?> sourceType, Class<?> targetType) {
+        if (targetType == String.class) {
+            return sourceType == String.class ? Function.identity() : String::valueOf;
+        }
+        if (targetType == Date.class) {
+            if (sourceType == DateTime.class) {
+                return value -> ((DateTime) value).toDate();
+            } else if (sourceType == Date.class) {
+                return Function.identity();
+            } else if (sourceType == String.class) {
+                return value -> BeanUtils.parseDate((String) value);
+            }
+            return value -> SKIP;
+        }
+        if (targetType == DateTime.class) {
+            if (sourceType == DateTime.class) {
+                return Function.identity();
+            } else if (sourceType == Date.class) {
+                return value -> new DateTime((Date) value);
+            } else if (sourceType == String.class) {
+                return value -> {
+                    Date date = BeanUtils.parseDate((String) value);
+                    return date == null ? SKIP : new DateTime(date);
+                };
+            }
+            return value -> SKIP;
+        }
+        if (targetType == Integer.class || targetType == int.class) {
+            return parse(Integer.class, Integer::parseInt);
+        }
+        if (targetType == Long.class || targetType == long.class) {
+            return parse(Long.class, Long::parseLong);
+        }
+        if (targetType == BigDecimal.class) {
+            return parse(BigDecimal.class, BigDecimal::new);
+        }
+        if (targetType == Boolean.class || targetType == boolean.class) {
+            return parse(Boolean.class, Boolean::parseBoolean);
+        }
+        if (targetType == Object.class) {
+            return Function.identity();
+        }
+        return null;
+    }
+
+    /**
+     * 值已经是目标类型时直接使用, 否则按字符串解析
+     */
+    private static Function<Object, Object> parse(Class<?> type, Function<String, Object> parser) {
+        return value -> type.isInstance(value) ? value : parser.apply(String.valueOf(value));
+    }
+
+    private static final class Property {
+
+        private final Class<?> sourceClass;
+
+        private final Class<?> targetClass;
+
+        private final String name;
+
+        private final MethodHandle getter;
+
+        private final Function<Object, Object> converter;
+
+        private final MethodHandle setter;
+
+        Property(Class<?> sourceClass, Class<?> targetClass, String name, MethodHandle getter,
+                 Function<Object, Object> converter, MethodHandle setter) {
+            this.sourceClass = sourceClass;
+            this.targetClass = targetClass;
+            this.name = name;
+            this.getter = getter;
+            this.converter = converter;
+            this.setter = setter;
+        }
+
+        void copy(Object source, Object target) {
+            try {
+                Object value = (Object) getter.invokeExact(source);
+                if (value == null) {
+                    return;
+                }
+                value = converter.apply(value);
+                if (value != SKIP) {
+                    setter.invokeExact(target, value);
+                }
+            } catch (Throwable e) {
+                log.error("field transfer error,{}.{} -> {}.{}", sourceClass.getName(), name,
+                        targetClass.getName(), name, e);
+            }
+        }
+    }
+}
@@ -1,19 +1,14 @@
 package com.talkingdata.ecommerce.utils;
 
-import com.google.common.collect.Lists;
-import org.joda.time.DateTime;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.Field;
 import java.lang.reflect.Method;
-import java.math.BigDecimal;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
-import java.util.Optional;
 
 import static java.util.Objects.nonNull;
 
@@ -33,96 +28,32 @@ public class BeanUtils {
 
     public static <T> void copyListProperties(Object source, List<T> target, Class<T> tClass) {
         if (nonNull(source) && source instanceof Collection) {
-            Collection sourceList = (Collection) source;
-            sourceList.forEach(s -> {
-                try{
-                    T t = tClass.newInstance();
-                    copyProperties(s, t);
-                    target.add(t);
-                } catch (IllegalAccessException | InstantiationException e) {
-                    log.error("copy list error");
+            Collection<?> sourceList = (Collection<?>) source;
+            BeanCopier copier = null;
+            Class<?> sourceClass = null;
+            for (Object s : sourceList) {
+                // 列表元素通常是同一类型, 只在类型变化时重新查找复制器, null元素复制为空实例
+                if (s == null) {
+                    copier = BeanCopier.get(Object.class, tClass);
+                    sourceClass = null;
+                } else if (s.getClass() != sourceClass) {
+                    sourceClass = s.getClass();
+                    copier = BeanCopier.get(sourceClass, tClass);
                 }
-            });
+                try {
+                    target.add(copier.copy(s));
+                } catch (IllegalStateException e) {
+                    log.error("copy list error", e);
+                }
+            }
         }
     }
 
+    /**
+     * 按同名字段复制, 复制计划按 (源类型, 目标类型) 缓存在 {@link BeanCopier} 中
+     */
     public static void setFieldValue(Object sourceEntity, Object targetEntity) {
-        Class<?> cls = targetEntity.getClass();
-        // 取出bean里的所有方法
-        Method[] methods = cls.getDeclaredMethods();
-        Field[] fields = cls.getDeclaredFields();
-        Class<?> sourceEntityClass = sourceEntity.getClass();
-        List<Field> sourceFields = Lists.newArrayList(sourceEntityClass.getDeclaredFields());
-        Class<?> superclass = sourceEntityClass.getSuperclass();
-        if (nonNull(superclass)) {
-            Field[] superFields = superclass.getDeclaredFields();
-            sourceFields.addAll(Lists.newArrayList(superFields));
-
-        }
-        for (Field field : fields) {
-            field.setAccessible(true);
-
-            Optional<Field> any = sourceFields.stream().filter(f -> f.getName().equals(field.getName())).findAny();
-            if (!any.isPresent()) {
-                continue;
-            }
-            Field sourceField = any.get();
-            sourceField.setAccessible(true);
-            try {
-                String fieldSetName = parSetName(field.getName());
-                if (!checkSetMet(methods, fieldSetName)) {
-                    continue;
-                }
-                Method fieldSetMet = cls.getMethod(fieldSetName,
-                        field.getType());
-                Object value = sourceField.get(sourceEntity);
-                if (null != value) {
-                    String fieldType = field.getType().getSimpleName();
-                    if ("String".equals(fieldType)) {
-                        fieldSetMet.invoke(targetEntity, String.valueOf(value));
-                    } else if ("Date".equals(fieldType)) {
-                        if (sourceField.getType().getSimpleName().equals("DateTime")) {
-                            fieldSetMet.invoke(targetEntity, ((DateTime) value).toDate());
-                        } else if (sourceField.getType().getSimpleName().equals("Date")) {
-                            fieldSetMet.invoke(targetEntity, (Date) value);
-                        } else if (sourceField.getType().getSimpleName().equals("String")) {
-                            Date temp = parseDate(String.valueOf(value));
-                            fieldSetMet.invoke(targetEntity, temp);
-                        }
-                    } else if ("DateTime".equals(fieldType)) {
-                        if (sourceField.getType().getSimpleName().equals("DateTime")) {
-                            fieldSetMet.invoke(targetEntity, (DateTime) value);
-                        } else if (sourceField.getType().getSimpleName().equals("Date")) {
-                            fieldSetMet.invoke(targetEntity, new DateTime((Date) value));
-                        } else if (sourceField.getType().getSimpleName().equals("String")) {
-                            Date temp = parseDate(String.valueOf(value));
-                            if (nonNull(temp)) {
-                                fieldSetMet.invoke(targetEntity, new DateTime(temp));
-                            }
-                        }
-                    } else if ("Integer".equals(fieldType) || "int".equals(fieldType)) {
-                        Integer intval = Integer.parseInt(String.valueOf(value));
-                        fieldSetMet.invoke(targetEntity, intval);
-                    } else if ("Long".equalsIgnoreCase(fieldType)) {
-                        Long temp = Long.parseLong(String.valueOf(value));
-                        fieldSetMet.invoke(targetEntity, temp);
-                    } else if ("BigDecimal".equalsIgnoreCase(fieldType)) {
-                        BigDecimal temp = new BigDecimal(String.valueOf(value));
-                        fieldSetMet.invoke(targetEntity, temp);
-                    } else if ("Boolean".equalsIgnoreCase(fieldType)) {
-                        Boolean temp = Boolean.parseBoolean(String.valueOf(value));
-                        fieldSetMet.invoke(targetEntity, temp);
-                    }else if("Object".equals(fieldType)){
-                        fieldSetMet.invoke(targetEntity, value);
-                    } else {
-                        log.error("not supper type" + fieldType);
-                    }
-                }
-            } catch (Exception e) {
-                log.error("field transfer error,{} -> {}", sourceField.getName(), field.getName(), e);
-                continue;
-            }
-        }
+        BeanCopier.get(sourceEntity.getClass(), targetEntity.getClass()).copy(sourceEntity, targetEntity);
     }
 
     public static String parSetName(String fieldName) {
@@ -64,6 +64,18 @@ public final class Configs {
         }
     }
 
+    public static Boolean getBoolean(String key, Boolean defaultValue) {
+        Object object = getObject(key);
+        if (null == object) {
+            return defaultValue;
+        }
+        if (object instanceof Boolean) {
+            return (Boolean) object;
+        } else {
+            return Boolean.valueOf(String.valueOf(object));
+        }
+    }
+
     private static void buildFlattenedMap(Map<String, Object> result, Map<String, Object> source, String path) {
         for (Map.Entry<String, Object> entry : source.entrySet()) {
             String key = entry.getKey();
@@ -0,0 +1,84 @@
+package com.talkingdata.ecommerce.support.json;
+
+import com.google.gson.Gson;
+import com.talkingdata.ecommerce.entity.TestDemo;
+import org.junit.Test;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * 版本匹配时不取实体、不序列化, 直接返回304
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+public class JsonEntityTagsTest {
+
+    private final JsonEntityTags entityTags = new JsonEntityTags(new Gson());
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void matchingVersionSkipsLoading() {
+        Response response = entityTags.ok(request("v1"), "v1", this::load);
+        assertEquals(304, response.getStatus());
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    public void changedVersionReturnsBodyWithVersionTag() {
+        Response response = entityTags.ok(request("v1"), "v2", this::load);
+        assertEquals(200, response.getStatus());
+        assertEquals(new EntityTag("v2", true), response.getEntityTag());
+        assertEquals("{\"id\":1,\"name\":\"demo\"}", new String((byte[]) response.getEntity(), StandardCharsets.UTF_8));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void missingEntityReturns404() {
+        Response response = entityTags.ok(request(null), "v1", () -> null);
+        assertEquals(404, response.getStatus());
+    }
+
+    @Test
+    public void withoutVersionTagIsBodyHash() {
+        Response first = entityTags.ok(request(null), null, this::load);
+        assertEquals(200, first.getStatus());
+        String hash = first.getEntityTag().getValue();
+        Response second = entityTags.ok(request(hash), null, this::load);
+        assertEquals(304, second.getStatus());
+        assertNull(second.getEntity());
+        assertEquals(2, loads.get());
+    }
+
+    private TestDemo load() {
+        loads.incrementAndGet();
+        TestDemo demo = new TestDemo();
+        demo.setId(1);
+        demo.setName("demo");
+        return demo;
+    }
+
+    /**
+     * 只实现 evaluatePreconditions(EntityTag), If-None-Match 为 ifNoneMatch(可为null)
+     */
+    private static Request request(String ifNoneMatch) {
+        return (Request) Proxy.newProxyInstance(JsonEntityTagsTest.class.getClassLoader(), new Class<?>[]{Request.class},
+                (proxy, method, args) -> {
+                    if (!"evaluatePreconditions".equals(method.getName()) || args == null || args.length != 1
+                            || !(args[0] instanceof EntityTag)) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    EntityTag tag = (EntityTag) args[0];
+                    return tag.getValue().equals(ifNoneMatch) ? Response.notModified(tag) : null;
+                });
+    }
+}
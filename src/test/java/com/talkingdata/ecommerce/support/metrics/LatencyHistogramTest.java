@@ -0,0 +1,129 @@
+package com.talkingdata.ecommerce.support.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 桶边界、分位值的相对误差, 以及0、线性区间和超出范围的值
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+public class LatencyHistogramTest {
+
+    private static final int BUCKETS = 1024;
+
+    private static final long MAX_TRACKABLE = (1L << 36) - 1;
+
+    @Test
+    public void linearRangeHasOneBucketPerValue() {
+        for (int value = 0; value < 32; value++) {
+            assertEquals(value, LatencyHistogram.index(value));
+            assertEquals(value, LatencyHistogram.highestValue(value));
+        }
+        // [32, 64) 仍是每桶宽度1, [64, 128) 每桶宽度2, [128, 256) 每桶宽度4
+        assertEquals(63, LatencyHistogram.index(63));
+        assertEquals(64, LatencyHistogram.index(64));
+        assertEquals(64, LatencyHistogram.index(65));
+        assertEquals(65, LatencyHistogram.highestValue(64));
+        assertEquals(96, LatencyHistogram.index(128));
+        assertEquals(131, LatencyHistogram.highestValue(96));
+    }
+
+    @Test
+    public void bucketsAreContiguousWithBoundedWidth() {
+        for (int i = 1; i < BUCKETS; i++) {
+            long lowest = LatencyHistogram.highestValue(i - 1) + 1;
+            long highest = LatencyHistogram.highestValue(i);
+            assertEquals(i, LatencyHistogram.index(lowest));
+            assertEquals(i, LatencyHistogram.index(highest));
+            assertTrue("bucket " + i, highest >= lowest);
+            assertTrue("bucket " + i, (highest - lowest + 1) * 32 <= Math.max(lowest, 32));
+        }
+        assertEquals(MAX_TRACKABLE, LatencyHistogram.highestValue(BUCKETS - 1));
+    }
+
+    @Test
+    public void overflowGoesToLastBucket() {
+        assertEquals(BUCKETS - 1, LatencyHistogram.index(MAX_TRACKABLE));
+        assertEquals(BUCKETS - 1, LatencyHistogram.index(1L << 36));
+        assertEquals(BUCKETS - 1, LatencyHistogram.index(Long.MAX_VALUE));
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1L << 40);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1, snapshot.getCount());
+        assertEquals(1L << 40, snapshot.getSum());
+        assertEquals(MAX_TRACKABLE, snapshot.quantile(0.99));
+    }
+
+    @Test
+    public void zeroAndNegativeAreRecordedAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(0);
+        histogram.record(-5);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.getCount());
+        assertEquals(0, snapshot.getSum());
+        assertEquals(0, snapshot.quantile(1));
+        assertEquals(2, snapshot.countAtOrBelow(0));
+    }
+
+    @Test
+    public void quantilesWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long sum = 0;
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value);
+            sum += value;
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100_000, snapshot.getCount());
+        assertEquals(sum, snapshot.getSum());
+        assertWithinError(50_000, snapshot.quantile(0.5));
+        assertWithinError(99_000, snapshot.quantile(0.99));
+        assertWithinError(100_000, snapshot.quantile(1));
+        assertWithinError(1, snapshot.quantile(0));
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int value = 1; value <= 20; value++) {
+            histogram.record(value);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(10, snapshot.quantile(0.5));
+        assertEquals(20, snapshot.quantile(0.99));
+        assertEquals(10, snapshot.countAtOrBelow(10));
+    }
+
+    @Test
+    public void countAtOrBelowOnlyCountsWholeBuckets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(100);
+        histogram.record(1000);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        // 100 所在的桶为 [100, 101]
+        assertEquals(0, snapshot.countAtOrBelow(100));
+        assertEquals(1, snapshot.countAtOrBelow(101));
+        assertEquals(2, snapshot.countAtOrBelow(MAX_TRACKABLE));
+    }
+
+    @Test
+    public void emptySnapshot() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.quantile(0.99));
+    }
+
+    /**
+     * 分位值取所在桶的最大值, 不小于真实值且相对误差不超过 1/32
+     */
+    private static void assertWithinError(long expected, long actual) {
+        assertTrue(expected + " -> " + actual, actual >= expected);
+        assertTrue(expected + " -> " + actual, (actual - expected) * 32 <= expected);
+    }
+}
@@ -0,0 +1,87 @@
+package com.talkingdata.ecommerce.support.querydsl.base;
+
+import com.google.common.collect.ImmutableList;
+import com.querydsl.core.types.Path;
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.MySQLTemplates;
+import com.querydsl.sql.OracleTemplates;
+import com.querydsl.sql.PostgreSQLTemplates;
+import com.querydsl.sql.SQLTemplates;
+import com.talkingdata.ecommerce.entity.query.QTestDemo;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 各方言 upsert 语句的拼接
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+public class DmlSupportTest {
+
+    private static final QTestDemo DEMO = new QTestDemo("testDemo");
+
+    private static final List<Path<?>> ALL = ImmutableList.of(DEMO.id, DEMO.name);
+
+    private static final List<Path<?>> KEY_ONLY = ImmutableList.of(DEMO.id);
+
+    private static final List<Path<?>> WITHOUT_KEY = ImmutableList.of(DEMO.name);
+
+    @Test
+    public void mysqlKeepsExistingKeyInLastInsertId() {
+        DmlSupport dml = dml(MySQLTemplates.builder().build());
+        assertEquals("insert into test_demo (id, name)\nvalues (?, ?)\n"
+                        + "on duplicate key update id = last_insert_id(id), name = values(name)",
+                dml.upsert(ALL, DEMO.id));
+        // 没有更新列时仍然设置 last_insert_id, 冲突时返回已有记录的主键
+        assertEquals("insert into test_demo (id)\nvalues (?)\non duplicate key update id = last_insert_id(id)",
+                dml.upsert(KEY_ONLY, DEMO.id));
+        assertEquals("insert into test_demo (name)\nvalues (?)\n"
+                        + "on duplicate key update id = last_insert_id(id), name = values(name)",
+                dml.upsert(WITHOUT_KEY, DEMO.id));
+    }
+
+    @Test
+    public void postgresqlUpdatesOnPrimaryKeyConflict() {
+        DmlSupport dml = dml(PostgreSQLTemplates.builder().build());
+        assertEquals("insert into test_demo (id, name)\nvalues (?, ?)\n"
+                        + "on conflict (id) do update set name = excluded.name",
+                dml.upsert(ALL, DEMO.id));
+    }
+
+    @Test
+    public void postgresqlDoesNothingWithoutUpdateColumns() {
+        DmlSupport dml = dml(PostgreSQLTemplates.builder().build());
+        assertEquals("insert into test_demo (id)\nvalues (?)\non conflict (id) do nothing",
+                dml.upsert(KEY_ONLY, DEMO.id));
+    }
+
+    @Test
+    public void oracleMergesOnlyWhenPrimaryKeyIsPresent() {
+        DmlSupport dml = dml(OracleTemplates.builder().build());
+        assertEquals("merge into test_demo t\nusing (select ? id, ? name from dual) s\non (t.id = s.id)\n"
+                        + "when matched then update set t.name = s.name\n"
+                        + "when not matched then insert (id, name) values (s.id, s.name)",
+                dml.upsert(ALL, DEMO.id));
+        assertEquals("merge into test_demo t\nusing (select ? id from dual) s\non (t.id = s.id)\n"
+                        + "when not matched then insert (id) values (s.id)",
+                dml.upsert(KEY_ONLY, DEMO.id));
+        // 主键由序列或触发器生成时不会冲突, 直接插入
+        assertEquals("insert into test_demo (name)\nvalues (?)", dml.upsert(WITHOUT_KEY, DEMO.id));
+    }
+
+    @Test
+    public void quotesIdentifiersByTemplates() {
+        DmlSupport dml = dml(MySQLTemplates.builder().quote().build());
+        assertEquals("insert into `test_demo` (`id`, `name`)\nvalues (?, ?)\n"
+                        + "on duplicate key update `id` = last_insert_id(`id`), `name` = values(`name`)",
+                dml.upsert(ALL, DEMO.id));
+    }
+
+    private static DmlSupport dml(SQLTemplates templates) {
+        return new DmlSupport(DEMO, new Configuration(templates), null, null);
+    }
+}
@@ -0,0 +1,94 @@
+package com.talkingdata.ecommerce.support.querydsl.base;
+
+import com.talkingdata.ecommerce.entity.TestDemo;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+/**
+ * 缓存存取的是独立副本, 修改返回的实体不影响缓存
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+public class EntityCacheTest {
+
+    @Test
+    public void returnsDetachedCopies() {
+        EntityCache<Integer, TestDemo> cache = new EntityCache<>(TestDemo.class);
+        TestDemo demo = new TestDemo();
+        demo.setId(1);
+        demo.setName("demo");
+        cache.put(1, demo);
+
+        demo.setName("changed after put");
+        TestDemo cached = cache.get(1);
+        assertEquals("demo", cached.getName());
+
+        cached.setName("changed after get");
+        TestDemo again = cache.get(1);
+        assertNotSame(cached, again);
+        assertEquals("demo", again.getName());
+        assertEquals(Integer.valueOf(1), again.getId());
+        assertNull(cache.get(2));
+    }
+
+    @Test
+    public void versionChangesOnlyWhenEntryIsReplaced() {
+        EntityCache<Integer, TestDemo> cache = new EntityCache<>(TestDemo.class);
+        assertNull(cache.getVersion(1));
+        TestDemo demo = new TestDemo();
+        demo.setId(1);
+        cache.put(1, demo);
+        String version = cache.getVersion(1);
+        assertNotNull(version);
+        cache.get(1);
+        assertEquals(version, cache.getVersion(1));
+
+        cache.invalidate(1);
+        assertNull(cache.getVersion(1));
+        cache.put(1, demo);
+        assertNotEquals(version, cache.getVersion(1));
+    }
+
+    @Test
+    public void copiesMutableValuesAndInheritedFields() {
+        EntityCopier<Child> copier = new EntityCopier<>(Child.class);
+        Child child = new Child();
+        child.id = 7L;
+        child.count = 3;
+        child.created = new Date(1000L);
+        child.data = new byte[]{1, 2};
+
+        Child copy = copier.copy(child);
+        child.created.setTime(2000L);
+        child.data[0] = 9;
+
+        assertEquals(Long.valueOf(7L), copy.id);
+        assertEquals(3, copy.count);
+        assertEquals(1000L, copy.created.getTime());
+        assertArrayEquals(new byte[]{1, 2}, copy.data);
+        assertNull(copier.copy(null));
+    }
+
+    public static class Parent {
+
+        Long id;
+    }
+
+    public static class Child extends Parent {
+
+        int count;
+
+        Date created;
+
+        byte[] data;
+    }
+}
@@ -0,0 +1,110 @@
+package com.talkingdata.ecommerce.support.querydsl.base;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.MySQLTemplates;
+import com.querydsl.sql.SQLSerializer;
+import com.talkingdata.ecommerce.entity.query.QTestDemo;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 游标分页生成的定位条件、排序, 以及游标值的类型转换
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+public class KeysetPaginationTest {
+
+    private static final QTestDemo DEMO = new QTestDemo("testDemo");
+
+    private static final Configuration CONFIGURATION = new Configuration(MySQLTemplates.builder().build());
+
+    @Test
+    public void firstPageSortedByPrimaryKeyHasNoPredicate() {
+        assertNull(AbstractBaseDao.keysetPredicate(DEMO.id, DEMO.id.asc(), null, null));
+        assertNull(AbstractBaseDao.keysetPredicate(DEMO.id, DEMO.id.desc(), null, null));
+    }
+
+    @Test
+    public void firstPageSortedByOtherColumnExcludesNulls() {
+        Predicate predicate = AbstractBaseDao.keysetPredicate(DEMO.id, DEMO.name.asc(), null, null);
+        assertEquals("testDemo.name is not null", render(predicate));
+    }
+
+    @Test
+    public void seeksByPrimaryKey() {
+        assertEquals("testDemo.id > ?",
+                render(AbstractBaseDao.keysetPredicate(DEMO.id, DEMO.id.asc(), null, 10)));
+        assertEquals("testDemo.id < ?",
+                render(AbstractBaseDao.keysetPredicate(DEMO.id, DEMO.id.desc(), null, 10)));
+    }
+
+    @Test
+    public void seeksByOtherColumnThenPrimaryKey() {
+        assertEquals("testDemo.name is not null and (testDemo.name > ? or testDemo.name = ? and testDemo.id > ?)",
+                render(AbstractBaseDao.keysetPredicate(DEMO.id, DEMO.name.asc(), "b", 10)));
+        assertEquals("testDemo.name is not null and (testDemo.name < ? or testDemo.name = ? and testDemo.id < ?)",
+                render(AbstractBaseDao.keysetPredicate(DEMO.id, DEMO.name.desc(), "b", 10)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void otherColumnCursorRequiresSortValue() {
+        AbstractBaseDao.keysetPredicate(DEMO.id, DEMO.name.asc(), null, 10);
+    }
+
+    @Test
+    public void ordersByPrimaryKeyAsTieBreaker() {
+        OrderSpecifier<?>[] byId = AbstractBaseDao.keysetOrder(DEMO.id, DEMO.id.desc());
+        assertEquals(1, byId.length);
+        assertEquals(DEMO.id.desc(), byId[0]);
+
+        OrderSpecifier<?>[] byName = AbstractBaseDao.keysetOrder(DEMO.id, DEMO.name.desc());
+        assertEquals(2, byName.length);
+        assertEquals(DEMO.name.desc(), byName[0]);
+        assertEquals(DEMO.id.desc(), byName[1]);
+    }
+
+    @Test
+    public void convertsJsonNumbersAndStrings() {
+        // Gson 把 JSON 数字解析为 Double
+        assertEquals(10, AbstractBaseDao.keysetValue(10.0D, Integer.class));
+        assertEquals(10L, AbstractBaseDao.keysetValue(10.0D, Long.class));
+        assertEquals(new BigDecimal("1.5"), AbstractBaseDao.keysetValue(1.5D, BigDecimal.class));
+        assertEquals(10, AbstractBaseDao.keysetValue(" 10 ", Integer.class));
+        assertEquals(10L, AbstractBaseDao.keysetValue(10, Long.class));
+        assertEquals("b", AbstractBaseDao.keysetValue("b", String.class));
+    }
+
+    @Test
+    public void rejectsUnconvertibleValues() {
+        assertRejected(1.5D, Integer.class);
+        assertRejected(1e20D, Long.class);
+        assertRejected(Double.NaN, Integer.class);
+        assertRejected("abc", Integer.class);
+        assertRejected(10.0D, String.class);
+        assertRejected(Boolean.TRUE, Integer.class);
+    }
+
+    private static void assertRejected(Object value, Class<?> type) {
+        try {
+            AbstractBaseDao.keysetValue(value, type);
+            fail(value + " -> " + type.getSimpleName());
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(type.getName()));
+        }
+    }
+
+    private static String render(Predicate predicate) {
+        SQLSerializer serializer = new SQLSerializer(CONFIGURATION);
+        serializer.handle(predicate);
+        return serializer.toString();
+    }
+}
@@ -0,0 +1,100 @@
+package com.talkingdata.ecommerce.support.querydsl.base;
+
+import com.talkingdata.ecommerce.entity.TestDemo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * 请求范围内重复主键只查询一次, 登记过的主键合并为一次查询
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+public class RequestLoaderTest {
+
+    /**
+     * 每次 selectByPrimaryKeys 的主键
+     */
+    private final List<List<Integer>> queries = new ArrayList<>();
+
+    private BaseDao<TestDemo, Integer> dao;
+
+    private RequestLoader loader;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        dao = (BaseDao<TestDemo, Integer>) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{BaseDao.class}, (proxy, method, args) -> {
+                    if (!"selectByPrimaryKeys".equals(method.getName())) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    List<Integer> ids = new ArrayList<>((Collection<Integer>) args[0]);
+                    queries.add(ids);
+                    Map<Integer, TestDemo> rows = new LinkedHashMap<>();
+                    for (Integer id : ids) {
+                        if (id < 100) {
+                            TestDemo demo = new TestDemo();
+                            demo.setId(id);
+                            rows.put(id, demo);
+                        }
+                    }
+                    return rows;
+                });
+        loader = RequestLoader.open();
+    }
+
+    @After
+    public void tearDown() {
+        RequestLoader.close();
+    }
+
+    @Test
+    public void repeatedLookupQueriesOnce() {
+        assertEquals(Integer.valueOf(1), loader.load(dao, 1).get().getId());
+        assertEquals(Integer.valueOf(1), loader.load(dao, 1).get().getId());
+        assertNull(loader.load(dao, 100).get());
+        assertNull(loader.load(dao, 100).get());
+        assertEquals(Arrays.asList(Arrays.asList(1), Arrays.asList(100)), queries);
+        assertEquals(2, loader.getQueries());
+    }
+
+    @Test
+    public void primedIdsAreFetchedInOneQuery() {
+        loader.prime(dao, Arrays.asList(1, 2, 3, 100));
+        for (Integer id : Arrays.asList(1, 2, 3)) {
+            assertEquals(id, loader.load(dao, id).get().getId());
+        }
+        assertNull(loader.load(dao, 100).get());
+        assertEquals(Arrays.asList(Arrays.asList(1, 2, 3, 100)), queries);
+    }
+
+    @Test
+    public void evictedIdIsQueriedAgain() {
+        loader.load(dao, 1).get();
+        loader.evict(dao, 1);
+        loader.load(dao, 1).get();
+        loader.load(dao, 2).get();
+        loader.evictAll(dao);
+        loader.load(dao, 2).get();
+        assertEquals(Arrays.asList(Arrays.asList(1), Arrays.asList(1), Arrays.asList(2), Arrays.asList(2)), queries);
+    }
+
+    @Test
+    public void closedRequestHasNoLoader() {
+        RequestLoader.close();
+        assertNull(RequestLoader.current());
+    }
+}
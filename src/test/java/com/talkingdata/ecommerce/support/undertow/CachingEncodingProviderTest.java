@@ -0,0 +1,372 @@
+package com.talkingdata.ecommerce.support.undertow;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.encoding.GzipEncodingProvider;
+import io.undertow.util.Headers;
+import io.undertow.util.Methods;
+import org.junit.Before;
+import org.junit.Test;
+import org.xnio.XnioIoThread;
+import org.xnio.XnioWorker;
+import org.xnio.channels.StreamSourceChannel;
+import org.xnio.conduits.StreamSinkConduit;
+import org.xnio.conduits.WriteReadyHandler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 缓冲压缩 conduit 的状态: 缓冲、结束写入后按压缩长度写出、写就绪通知和截断
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+public class CachingEncodingProviderTest {
+
+    private Cache<String, CachingEncodingProvider.CompressedBody> cache;
+
+    private CachingEncodingProvider provider;
+
+    /**
+     * 代替IO线程, 由测试手动执行
+     */
+    private Queue<Runnable> ioTasks;
+
+    @Before
+    public void setUp() {
+        cache = CacheBuilder.newBuilder().maximumSize(100).recordStats().build();
+        ioTasks = new ArrayDeque<>();
+        provider = new CachingEncodingProvider("gzip", new GzipEncodingProvider(6), 6, cache, 256 * 1024,
+                exchange -> ioTasks::add);
+    }
+
+    @Test
+    public void compressesWholeBodyWithCompressedContentLength() throws IOException {
+        byte[] body = body(0);
+        HttpServerExchange exchange = exchange("/demo", body.length);
+        FakeConduit next = new FakeConduit(1000);
+        StreamSinkConduit conduit = wrap(exchange, next);
+
+        conduit.write(ByteBuffer.wrap(body, 0, 100));
+        conduit.write(new ByteBuffer[]{ByteBuffer.wrap(body, 100, body.length - 100)}, 0, 1);
+        assertTrue(conduit.flush());
+        assertFalse(next.created);
+
+        conduit.terminateWrites();
+        assertTrue(next.created);
+        assertFalse(conduit.flush());
+        while (!conduit.flush()) {
+            // 下层每次只写一部分, 并交替返回0
+        }
+
+        byte[] sent = next.out.toByteArray();
+        assertEquals(String.valueOf(sent.length), next.contentLength);
+        assertTrue(sent.length < body.length);
+        assertArrayEquals(body, gunzip(sent));
+        assertTrue(next.terminated);
+        assertTrue(conduit.isWriteShutdown());
+    }
+
+    @Test
+    public void reusesCachedBodyOnlyForSameContent() throws IOException {
+        byte[] body = body(0);
+        byte[] first = send("/demo", body);
+        byte[] second = send("/demo", body);
+        assertEquals(1, cache.stats().hitCount());
+        assertArrayEquals(first, second);
+
+        // 长度相同、内容不同时重新压缩
+        byte[] changed = body(1);
+        assertEquals(body.length, changed.length);
+        byte[] third = send("/demo", changed);
+        assertFalse(Arrays.equals(first, third));
+        assertArrayEquals(changed, gunzip(third));
+        assertArrayEquals(changed, gunzip(send("/demo", changed)));
+    }
+
+    @Test
+    public void resumeBeforeTerminateIsPassedToNext() throws IOException {
+        byte[] body = body(0);
+        HttpServerExchange exchange = exchange("/demo", body.length);
+        FakeConduit next = new FakeConduit(Integer.MAX_VALUE);
+        StreamSinkConduit conduit = wrap(exchange, next);
+        CountingHandler handler = new CountingHandler();
+        conduit.setWriteReadyHandler(handler);
+
+        conduit.resumeWrites();
+        assertTrue(conduit.isWriteResumed());
+        runIoTask();
+        assertEquals(1, handler.ready);
+        // 缓冲阶段总是可写, 恢复写入期间持续通知
+        assertEquals(1, ioTasks.size());
+
+        conduit.write(ByteBuffer.wrap(body));
+        conduit.terminateWrites();
+        assertTrue(next.resumed);
+        assertSame(handler, next.handler);
+        assertTrue(conduit.isWriteResumed());
+
+        // 下层创建后不再在缓冲阶段通知
+        runIoTask();
+        assertEquals(2, handler.ready);
+        assertTrue(ioTasks.isEmpty());
+
+        conduit.suspendWrites();
+        assertFalse(next.resumed);
+        assertTrue(conduit.flush());
+        assertArrayEquals(body, gunzip(next.out.toByteArray()));
+    }
+
+    @Test
+    public void suspendStopsWriteReadyBeforeTerminate() throws IOException {
+        HttpServerExchange exchange = exchange("/demo", 100);
+        StreamSinkConduit conduit = wrap(exchange, new FakeConduit(Integer.MAX_VALUE));
+        CountingHandler handler = new CountingHandler();
+        conduit.setWriteReadyHandler(handler);
+
+        conduit.resumeWrites();
+        conduit.suspendWrites();
+        assertFalse(conduit.isWriteResumed());
+        runIoTask();
+        assertEquals(1, handler.ready);
+        assertTrue(ioTasks.isEmpty());
+    }
+
+    @Test
+    public void truncateBeforeTerminateTruncatesNext() throws IOException {
+        byte[] body = body(0);
+        HttpServerExchange exchange = exchange("/demo", body.length);
+        FakeConduit next = new FakeConduit(Integer.MAX_VALUE);
+        StreamSinkConduit conduit = wrap(exchange, next);
+
+        conduit.write(ByteBuffer.wrap(body, 0, 100));
+        conduit.truncateWrites();
+
+        assertTrue(next.created);
+        assertTrue(next.truncated);
+        assertEquals(0, next.out.size());
+        assertTrue(conduit.isWriteShutdown());
+        assertEquals(0, cache.size());
+    }
+
+    private byte[] send(String uri, byte[] body) throws IOException {
+        HttpServerExchange exchange = exchange(uri, body.length);
+        FakeConduit next = new FakeConduit(Integer.MAX_VALUE);
+        StreamSinkConduit conduit = wrap(exchange, next);
+        conduit.write(ByteBuffer.wrap(body));
+        conduit.terminateWrites();
+        assertTrue(conduit.flush());
+        return next.out.toByteArray();
+    }
+
+    private StreamSinkConduit wrap(HttpServerExchange exchange, FakeConduit next) {
+        StreamSinkConduit conduit = provider.getResponseWrapper().wrap(() -> {
+            next.created = true;
+            next.contentLength = exchange.getResponseHeaders().getFirst(Headers.CONTENT_LENGTH);
+            return next;
+        }, exchange);
+        assertNull(next.contentLength);
+        return conduit;
+    }
+
+    private void runIoTask() {
+        ioTasks.poll().run();
+    }
+
+    private static HttpServerExchange exchange(String uri, int contentLength) {
+        HttpServerExchange exchange = new HttpServerExchange(null);
+        exchange.setRequestMethod(Methods.GET);
+        exchange.setRequestURI(uri);
+        exchange.setQueryString("");
+        exchange.setStatusCode(200);
+        exchange.getResponseHeaders().put(Headers.CONTENT_LENGTH, contentLength);
+        return exchange;
+    }
+
+    private static byte[] body(int variant) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 500; i++) {
+            json.append("{\"id\":").append(i).append(",\"name\":\"demo").append(variant).append("\"},");
+        }
+        return json.append("0]").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gunzip(byte[] gzip) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static final class CountingHandler implements WriteReadyHandler {
+
+        private int ready;
+
+        @Override
+        public void writeReady() {
+            ready++;
+        }
+
+        @Override
+        public void forceTermination() {
+        }
+
+        @Override
+        public void terminated() {
+        }
+    }
+
+    /**
+     * 下层 conduit, 每次最多写 maxWrite 字节, 并且每隔一次写入返回0模拟缓冲区满
+     */
+    private static final class FakeConduit implements StreamSinkConduit {
+
+        private final int maxWrite;
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        private boolean created;
+
+        private String contentLength;
+
+        private boolean full;
+
+        private boolean resumed;
+
+        private boolean terminated;
+
+        private boolean truncated;
+
+        private WriteReadyHandler handler;
+
+        FakeConduit(int maxWrite) {
+            this.maxWrite = maxWrite;
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            if (maxWrite != Integer.MAX_VALUE) {
+                full = !full;
+                if (full) {
+                    return 0;
+                }
+            }
+            int length = Math.min(src.remaining(), maxWrite);
+            byte[] bytes = new byte[length];
+            src.get(bytes);
+            out.write(bytes, 0, length);
+            return length;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offs, int len) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int writeFinal(ByteBuffer src) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long writeFinal(ByteBuffer[] srcs, int offs, int len) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long transferFrom(FileChannel src, long position, long count) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long transferFrom(StreamSourceChannel source, long count, ByteBuffer throughBuffer) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void terminateWrites() {
+            terminated = true;
+        }
+
+        @Override
+        public boolean isWriteShutdown() {
+            return terminated || truncated;
+        }
+
+        @Override
+        public void resumeWrites() {
+            resumed = true;
+        }
+
+        @Override
+        public void suspendWrites() {
+            resumed = false;
+        }
+
+        @Override
+        public void wakeupWrites() {
+            resumed = true;
+        }
+
+        @Override
+        public boolean isWriteResumed() {
+            return resumed;
+        }
+
+        @Override
+        public void awaitWritable() {
+        }
+
+        @Override
+        public void awaitWritable(long time, TimeUnit timeUnit) {
+        }
+
+        @Override
+        public XnioIoThread getWriteThread() {
+            return null;
+        }
+
+        @Override
+        public void setWriteReadyHandler(WriteReadyHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void truncateWrites() {
+            truncated = true;
+        }
+
+        @Override
+        public boolean flush() {
+            return true;
+        }
+
+        @Override
+        public XnioWorker getWorker() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.talkingdata.ecommerce.utils;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 属性复制的类型转换、源值为null的字段, 以及列表中的null元素
+ *
+ * @author wwy
+ * @date 2026/10/18
+ */
+public class BeanCopierTest {
+
+    private static final DateTime TIME = new DateTime(2026, 10, 18, 10, 20, 30);
+
+    @Test
+    public void convertsSupportedTypes() {
+        Source source = new Source();
+        source.text = "demo";
+        source.number = 7;
+        source.numberText = "12";
+        source.primitiveNumber = "5";
+        source.primitiveLong = 3;
+        source.date = TIME;
+        source.dateTime = TIME.toDate();
+        source.dateText = "2026-10-18";
+        source.dateTimeText = "2026-10-18 10:20:30";
+        source.flag = "true";
+        source.primitiveFlag = Boolean.TRUE;
+        source.amount = "1.50";
+
+        Target target = BeanCopier.get(Source.class, Target.class).copy(source);
+        assertEquals("demo", target.text);
+        assertEquals("7", target.number);
+        assertEquals(Integer.valueOf(12), target.numberText);
+        assertEquals(5, target.primitiveNumber);
+        assertEquals(3L, target.primitiveLong);
+        assertEquals(TIME.toDate(), target.date);
+        assertEquals(TIME, target.dateTime);
+        assertEquals(new DateTime(2026, 10, 18, 0, 0).toDate(), target.dateText);
+        assertEquals(TIME, target.dateTimeText);
+        assertEquals(Boolean.TRUE, target.flag);
+        assertTrue(target.primitiveFlag);
+        assertEquals(new BigDecimal("1.50"), target.amount);
+    }
+
+    @Test
+    public void nullAndUnparsableSourceFieldsKeepTargetValues() {
+        Source source = new Source();
+        source.dateTimeText = "not a date";
+        source.invalid = "abc";
+        Target target = new Target();
+        target.text = "kept";
+        target.primitiveNumber = 9;
+        target.dateTimeText = TIME;
+        target.invalid = 1;
+
+        BeanUtils.copyProperties(source, target);
+        assertEquals("kept", target.text);
+        assertEquals(9, target.primitiveNumber);
+        // 无法解析的日期跳过, 无法解析的数字记录日志后继续复制其他字段
+        assertEquals(TIME, target.dateTimeText);
+        assertEquals(Integer.valueOf(1), target.invalid);
+        assertNull(target.flag);
+    }
+
+    @Test
+    public void copiesListWithNullElement() {
+        Source first = new Source();
+        first.text = "first";
+        Source last = new Source();
+        last.text = "last";
+        List<Target> targets = new ArrayList<>();
+
+        BeanUtils.copyListProperties(Arrays.asList(first, null, last), targets, Target.class);
+        assertEquals(3, targets.size());
+        assertEquals("first", targets.get(0).text);
+        assertNotNull(targets.get(1));
+        assertNull(targets.get(1).text);
+        assertEquals("last", targets.get(2).text);
+    }
+
+    public static class Source {
+
+        private String text;
+
+        private Integer number;
+
+        private String numberText;
+
+        private String primitiveNumber;
+
+        private Integer primitiveLong;
+
+        private DateTime date;
+
+        private Date dateTime;
+
+        private String dateText;
+
+        private String dateTimeText;
+
+        private String flag;
+
+        private Boolean primitiveFlag;
+
+        private String amount;
+
+        private String invalid;
+    }
+
+    public static class Target {
+
+        private String text;
+
+        private String number;
+
+        private Integer numberText;
+
+        private int primitiveNumber;
+
+        private long primitiveLong;
+
+        private Date date;
+
+        private DateTime dateTime;
+
+        private Date dateText;
+
+        private DateTime dateTimeText;
+
+        private Boolean flag;
+
+        private boolean primitiveFlag;
+
+        private BigDecimal amount;
+
+        private Integer invalid;
+
+        public void setText(String text) {
+            this.text = text;
+        }
+
+        public void setNumber(String number) {
+            this.number = number;
+        }
+
+        public void setNumberText(Integer numberText) {
+            this.numberText = numberText;
+        }
+
+        public void setPrimitiveNumber(int primitiveNumber) {
+            this.primitiveNumber = primitiveNumber;
+        }
+
+        public void setPrimitiveLong(long primitiveLong) {
+            this.primitiveLong = primitiveLong;
+        }
+
+        public void setDate(Date date) {
+            this.date = date;
+        }
+
+        public void setDateTime(DateTime dateTime) {
+            this.dateTime = dateTime;
+        }
+
+        public void setDateText(Date dateText) {
+            this.dateText = dateText;
+        }
+
+        public void setDateTimeText(DateTime dateTimeText) {
+            this.dateTimeText = dateTimeText;
+        }
+
+        public void setFlag(Boolean flag) {
+            this.flag = flag;
+        }
+
+        public void setPrimitiveFlag(boolean primitiveFlag) {
+            this.primitiveFlag = primitiveFlag;
+        }
+
+        public void setAmount(BigDecimal amount) {
+            this.amount = amount;
+        }
+
+        public void setInvalid(Integer invalid) {
+            this.invalid = invalid;
+        }
+    }
+}